@@ -110,853 +110,5293 @@ Dependencies:
 package ci.abidjan.adi;
 
 import java.io.*;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class JavaClassGenerator {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    // Time spent loading Jackson and creating the ObjectMapper, 0 until a spec is read.
+    private static long jacksonInitNanos;
+
+    // Jackson is loaded the first time a spec is read, not when the class is loaded: usage and option
+    // errors, for example, never pay for it.
+    private static final class Json {
+        static final ObjectMapper OBJECT_MAPPER;
+
+        static {
+            long start = System.nanoTime();
+            OBJECT_MAPPER = new ObjectMapper();
+            jacksonInitNanos = System.nanoTime() - start;
+        }
+    }
+
+    private static ObjectMapper objectMapper() {
+        return Json.OBJECT_MAPPER;
+    }
+
+    private static final Set<String> LOMBOK_ANNOTATIONS = Set.of("@NoArgsConstructor", "@RequiredArgsConstructor", "@AllArgsConstructor", "@Getter", "@Setter",
+            "@ToString", "@EqualsAndHashCode", "@Data", "@Value", "@Builder", "@With", "@NonNull", "@SneakyThrows", "@Synchronized");
+
+    private static final Set<String> RELATIONSHIP_ANNOTATIONS = Set.of("@OneToOneJoinColumn", "@OneToOneMappedBy", "@OneToManyMappedBy",
+            "@ManyToOneJoinColumn", "@ManyToManyJoinTable", "@ManyToManyMappedBy");
+    // Name given to a column or a join column by its @Column or @JoinColumn annotation.
+    private static final Pattern COLUMN_NAME = Pattern.compile("name\\s*=\\s*\"([^\"]+)\"");
+    // Prefixes of the JPA association annotations written out in full in "field_annotations".
+    private static final List<String> ASSOCIATION_ANNOTATION_PREFIXES = List.of("@OneToOne", "@OneToMany", "@ManyToOne", "@ManyToMany", "@ElementCollection");
+
+    // Types of projection components that need an import; other non java.lang types are the enums and
+    // embeddables of the shared package.
+    private static final Map<String, String> JDK_TYPE_IMPORTS = Map.of(
+            "Date", "java.util.Date", "UUID", "java.util.UUID", "BigDecimal", "java.math.BigDecimal", "BigInteger", "java.math.BigInteger",
+            "LocalDate", "java.time.LocalDate", "LocalDateTime", "java.time.LocalDateTime", "LocalTime", "java.time.LocalTime",
+            "Instant", "java.time.Instant", "OffsetDateTime", "java.time.OffsetDateTime", "Duration", "java.time.Duration");
+    private static final Map<String, String> BOXED_TYPES = Map.of("long", "Long", "int", "Integer", "short", "Short", "byte", "Byte", "char", "Character");
+    private static final Set<String> JAVA_LANG_TYPES = Set.of("String", "Long", "Integer", "Short", "Byte", "Double", "Float", "Boolean", "Character",
+            "long", "int", "short", "byte", "double", "float", "boolean", "char");
+
+    private static final List<String> CACHE_STRATEGIES = List.of("READ_ONLY", "NONSTRICT_READ_WRITE", "READ_WRITE", "TRANSACTIONAL");
+
+    private static final List<String> EXECUTION_MODELS = List.of("blocking", "virtual_threads", "async");
+
+    // Every variable compileConfiguration reads; the others are reported, since a misspelled one is otherwise ignored.
+    private static final Set<String> CONFIGURATION_KEYS = Set.of("OUT_PUT_DIR", "jpa_used", "jakarta_persistence_api",
+            "pojo_model_beanified", "model_classes_package", "generate_classes_following_packages", "entity_suffix", "id_generated_value",
+            "add_models_no_and_all_args_constructors", "add_model_class_getters_setters", "add_model_class_hashcode_equals_tostring_methods",
+            "spring_data_used_for_repositories_and_services", "model_classes__package", "repository_classes__packages",
+            "service_classes__packages", "controller_classes__packages", "parallel_generation", "parallel_worker_count",
+            "incremental_generation", "streaming_json_ingestion", "streaming_batch_size", "templates_directory", "output_sink",
+            "output_archive", "watch_mode", "metrics_report", "jfr_events", "compile_verification", "compile_verification_classpath",
+            "migration_verification", "migration_verification_classpath",
+            "high_throughput_persistence", "id_sequence_allocation_size", "jdbc_batch_size", "max_page_size", "default_page_size",
+            "unbounded_find_all", "relationship_fetch_type", "collection_batch_size", "projection_classes_packages", "execution_model",
+            "connection_pool_size", "entity_identity_equality", "schema_migration_version", "bulk_operations", "read_replica_routing",
+            "primary_pool_size", "replica_pool_size", "streaming_export", "export_fetch_size");
+    // Deprecated spellings, used by the sample and the README of earlier releases, and the variable each one stands for.
+    private static final Map<String, String> CONFIGURATION_ALIASES = Map.of(
+            "jarkata_persistence_api", "jakarta_persistence_api",
+            "controller_classes_packages", "controller_classes__packages",
+            "repository_classes_packages", "repository_classes__packages",
+            "service_classes_packages", "service_classes__packages");
+
+    // Part of the hash of every generated file: raise it when a release changes the generated code without
+    // changing a template, so that incremental generation does not keep the files of the former release.
+    private static final String GENERATOR_VERSION = "1.1";
+
+    private static final String CONFIGURATION_SOURCE_KEY = "configuration_variables";
+    // The cache configuration files also depend on the cache hints of the entities.
+    private static final String CACHE_REGIONS_SOURCE_KEY = "cache_regions";
+    // The application properties also depend on the cache hints and on the index migrations (the Flyway settings).
+    private static final String APPLICATION_SETTINGS_SOURCE_KEY = "application_settings";
+    // Optional configuration files have their own source key, so that incremental generation deletes them once turned off.
+    private static final String ASYNC_CONFIGURATION_SOURCE_KEY = "async_configuration";
+    private static final String READ_REPLICA_SOURCE_KEY = "read_replica_routing";
+    private static final String JACKSON_CONFIGURATION_SOURCE_KEY = "jackson_configuration";
+    // The index migration depends on the indexes of all the entities.
+    private static final String SCHEMA_INDEXES_SOURCE_KEY = "schema_indexes";
+    // Flyway versioned migrations found in OUT_PUT_DIR, and the statements of the index migrations.
+    private static final Pattern VERSIONED_MIGRATION = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final Pattern INDEX_STATEMENT = Pattern.compile("CREATE (?:UNIQUE )?INDEX (\\S+) ON (\\S+) \\(([^)]*)\\);");
+
+    // Pool used when "parallel_generation" is enabled, null for a sequential run.
+    private static ForkJoinPool generationPool;
+
+    // Manifest used when "incremental_generation" is enabled, null for a full run.
+    private static GenerationManifest manifest;
+
+    // Destination of the generated files for the current run, selected by "output_sink".
+    private static OutputSink outputSink;
+
+    private static GenerationMetrics metrics = new GenerationMetrics();
+
+    // Collects the generated sources of the current run when "compile_verification" is enabled.
+    private static CompileVerifier verifier;
+
+    // Outcome of the H2 run of the index migrations when "migration_verification" is enabled, printed with the summary.
+    private static volatile String migrationSummary;
+
+    // Last successfully compiled configuration, reused while "configuration_variables" does not change.
+    private static GeneratorConfig compiledConfiguration;
+
+    private static final long WATCH_SETTLE_MILLIS = 200;
+
+    // Set while a batch runs, so that the worker pool is kept from one spec to the next.
+    private static boolean batchRun;
+
+    private static StartupReport startupReport;
 
     public static void main(String[] args) {
+        if (Arrays.asList(args).contains("--startup-report")) {
+            startupReport = new StartupReport();
+            args = Arrays.stream(args).filter(arg -> !arg.equals("--startup-report")).toArray(String[]::new);
+        }
+        if (args.length > 0) {
+            int exitCode = runBatch(args);
+            if (startupReport != null) {
+                startupReport.print();
+            }
+            System.exit(exitCode);
+        }
         String filePath = "data.json";
+        long start = System.nanoTime();
+        GeneratorConfig config = generate(filePath, true);
+        if (startupReport != null) {
+            startupReport.print();
+        }
+        if (config != null && config.watchMode()) {
+            printRunLatency(1, true, start);
+            watch(filePath);
+        }
+    }
+
+    // Where the time goes from the start of the JVM to the end of the first generation. The JVM startup
+    // is its uptime when main starts, in milliseconds.
+    private static final class StartupReport {
+        private final long mainStart = System.nanoTime();
+        private final long jvmStartupMillis = java.lang.management.ManagementFactory.getRuntimeMXBean().getUptime();
+        private long firstRunNanos = -1;
+        private long loadNanos;
+        private long validateNanos;
+
+        void recordRun(long runNanos) {
+            if (firstRunNanos < 0) {
+                firstRunNanos = runNanos;
+                loadNanos = metrics.phaseNanos("load");
+                validateNanos = metrics.phaseNanos("validate");
+            }
+        }
+
+        void print() {
+            boolean sharing = System.getProperty("java.vm.info", "").contains("sharing");
+            System.out.println("\n⏱️ Startup breakdown (class data sharing " + (sharing ? "on" : "off") + "):");
+            System.out.println("\tJVM startup until main: " + jvmStartupMillis + " ms");
+            System.out.println(String.format(Locale.ROOT, "\tJackson initialization: %.1f ms", jacksonInitNanos / 1_000_000.0));
+            if (firstRunNanos >= 0) {
+                System.out.println(String.format(Locale.ROOT, "\tSpec loading: %.1f ms", Math.max(0, loadNanos - jacksonInitNanos) / 1_000_000.0));
+                System.out.println(String.format(Locale.ROOT, "\tValidation: %.1f ms", validateNanos / 1_000_000.0));
+                System.out.println(String.format(Locale.ROOT, "\tGeneration: %.1f ms", (firstRunNanos - loadNanos - validateNanos) / 1_000_000.0));
+            }
+            System.out.println(String.format(Locale.ROOT, "\tTotal: %.1f ms", jvmStartupMillis + (System.nanoTime() - mainStart) / 1_000_000.0));
+        }
+    }
+
+    static GeneratorConfig generate(String filePath, boolean interactive) {
+        return generate(filePath, interactive, Collections.emptyMap());
+    }
+
+    // Runs one generation and returns its configuration, or null when nothing could be generated.
+    // The overrides replace configuration variables of the file (the batch mode sets OUT_PUT_DIR).
+    static GeneratorConfig generate(String filePath, boolean interactive, Map<String, Object> overrides) {
+        long runStart = System.nanoTime();
+        metrics = new GenerationMetrics();
         System.out.println("\n" + "=".repeat(80));
         System.out.println(centerText("Loading data from the JSON file...", 80));
         System.out.println("=".repeat(80));
 
-        Map<String, Object> data = verifyData(filePath);
+        GenerationMetrics.Phase load = metrics.startPhase("load");
+        Map<String, Object> streamedConfiguration = readConfigurationVariables(filePath);
+        boolean streaming = streamedConfiguration != null && Boolean.TRUE.equals(streamedConfiguration.get("streaming_json_ingestion"));
+        Map<String, Object> data = streaming ? null : verifyData(filePath);
+        load.end();
+        GeneratorConfig config = null;
+        if (streaming || data != null) {
+            GenerationMetrics.Phase validate = metrics.startPhase("validate");
+            Map<String, Object> configurationVariables = streaming ? streamedConfiguration : (Map<String, Object>) data.get("configuration_variables");
+            if (!overrides.isEmpty() && configurationVariables != null) {
+                configurationVariables = new LinkedHashMap<>(configurationVariables);
+                configurationVariables.putAll(overrides);
+            }
+            config = compileConfiguration(configurationVariables);
+            validate.end();
+        }
+        if (config != null) {
+            metrics.jfrEvents = config.jfrEvents();
+        }
+        StreamedSpec spec = null;
+        if (streaming && config != null) {
+            load = metrics.startPhase("load");
+            spec = verifyStreamedData(filePath, config);
+            load.end();
+        }
 
-        if (data != null) {
+        if (config != null && (spec != null || data != null)) {
             System.out.println("\n" + "=".repeat(80));
             System.out.println(centerText("Data loaded successfully. Starting class generation...", 80));
             System.out.println("=".repeat(80));
 
-            List<String> generatedClasses = generateClasses((List<Map<String, Object>>) data.get("entities"), (Map<String, Object>) data.get("configuration_variables"));
-            System.out.println("\n\t📦 " + generatedClasses.size() + " model classes generated successfully.");
+            List<GeneratedClass> generatedClasses = new ArrayList<>();
+            GenerationSummary summary = new GenerationSummary();
+            Templates.resetStatistics();
 
-            if (data.containsKey("interface_classes")) {
-                generateInterfaces((List<Map<String, Object>>) data.get("interface_classes"), (Map<String, Object>) data.get("configuration_variables"));
-                System.out.println("\t📜 " + ((List<?>) data.get("interface_classes")).size() + " interfaces generated successfully.");
+            try {
+                outputSink = OutputSink.create(config);
+            } catch (IOException e) {
+                System.out.println("Error opening the output " + config.outputSink() + ": " + e.getMessage());
+                return null;
             }
+            String outputLocation = outputSink.location();
 
-            if (data.containsKey("embeddable_classes")) {
-                generateEmbeddables((List<Map<String, Object>>) data.get("embeddable_classes"), (Map<String, Object>) data.get("configuration_variables"));
-                System.out.println("\t📎 " + ((List<?>) data.get("embeddable_classes")).size() + " embeddable classes generated successfully.");
+            ForkJoinPool pool = createGenerationPool(config);
+            if (generationPool != null && generationPool != pool) {
+                generationPool.shutdown();
+            }
+            generationPool = pool;
+            if (config.incrementalGeneration()) {
+                try {
+                    manifest = GenerationManifest.load(config);
+                } catch (IOException e) {
+                    System.out.println("Error reading the generation manifest, all files will be regenerated: " + e.getMessage());
+                }
+            }
+            verifier = config.compileVerification() ? new CompileVerifier(config) : null;
+            try {
+                if (spec != null) {
+                    generateFromStream(spec, config, generatedClasses, summary);
+                } else {
+                    generateFromData(data, config, generatedClasses, summary);
+                }
+                if (verifier != null) {
+                    GenerationMetrics.Phase verify = metrics.startPhase("verify");
+                    verifier.verify();
+                    verify.end();
+                }
+                if (manifest != null) {
+                    try {
+                        manifest.save();
+                    } catch (IOException e) {
+                        System.out.println("Error writing the generation manifest: " + e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("Error while streaming the file " + filePath + ": " + e.getMessage());
+            } finally {
+                if (generationPool != null && !config.watchMode() && !batchRun) {
+                    generationPool.shutdown();
+                    generationPool = null;
+                }
+                try {
+                    outputSink.close();
+                } catch (IOException e) {
+                    System.out.println("Error closing the output " + outputLocation + ": " + e.getMessage());
+                }
             }
 
-            if (data.containsKey("enum_classes")) {
-                generateEnums((List<Map<String, Object>>) data.get("enum_classes"), (Map<String, Object>) data.get("configuration_variables"));
-                System.out.println("\t🔢 " + ((List<?>) data.get("enum_classes")).size() + " enums generated successfully.");
+            long unchangedClasses = generatedClasses.stream().filter(GeneratedClass::unchanged).count();
+            System.out.println("\n\t📦 " + (generatedClasses.size() - unchangedClasses) + " model classes generated successfully"
+                    + (unchangedClasses > 0 ? ", " + unchangedClasses + " unchanged." : "."));
+            if (summary.sectionSizes.containsKey("interface_classes")) {
+                System.out.println("\t📜 " + summary.sectionSizes.get("interface_classes") + " interfaces generated successfully.");
+            }
+            if (summary.sectionSizes.containsKey("embeddable_classes")) {
+                System.out.println("\t📎 " + summary.sectionSizes.get("embeddable_classes") + " embeddable classes generated successfully.");
+            }
+            if (summary.sectionSizes.containsKey("enum_classes")) {
+                System.out.println("\t🔢 " + summary.sectionSizes.get("enum_classes") + " enums generated successfully.");
+            }
+            int entityCount = summary.sectionSizes.getOrDefault("entities", 0);
+            System.out.println("\t📚 " + entityCount + " repositories generated successfully.");
+            System.out.println("\t🛠️ " + entityCount + " services generated successfully.");
+            System.out.println("\t🎮 " + entityCount + " controllers generated successfully.");
+            if (summary.configurationGenerated) {
+                System.out.println("\t✅ Configuration files generated successfully in " + outputLocation + ".");
+            }
+            long renderedFiles = Templates.renderedFiles.sum();
+            if (renderedFiles > 0) {
+                double renderMillis = Math.max(Templates.renderNanos.sum() / 1_000_000.0, 0.001);
+                System.out.println(String.format(Locale.ROOT, "\t🧩 %d files rendered from templates in %.1f ms (%.1f files/ms).", renderedFiles, renderMillis, renderedFiles / renderMillis));
+            }
+            if (manifest != null) {
+                System.out.println("\t♻️ " + manifest.unchangedFiles.get() + " unchanged files kept, " + manifest.removedFiles.get() + " orphaned files removed.");
+                manifest = null;
+            }
+            if (verifier != null) {
+                System.out.println(verifier.summary());
+                verifier = null;
+            }
+            if (migrationSummary != null) {
+                System.out.println(migrationSummary);
+                migrationSummary = null;
+            }
+            metrics.finish(filePath);
+            if (!config.metricsReport().isEmpty()) {
+                try {
+                    metrics.writeReport(config.metricsReport());
+                    System.out.println("\t📊 Metrics report written to " + config.metricsReport() + ".");
+                } catch (IOException e) {
+                    System.out.println("Error writing the metrics report: " + e.getMessage());
+                }
             }
 
-            generateRepositories((List<Map<String, Object>>) data.get("entities"), (Map<String, Object>) data.get("configuration_variables"));
-            generateServices((List<Map<String, Object>>) data.get("entities"), (Map<String, Object>) data.get("configuration_variables"));
-            generateControllers((List<Map<String, Object>>) data.get("entities"), (Map<String, Object>) data.get("configuration_variables"));
-            generateConfigurationFiles((Map<String, Object>) data.get("configuration_variables"));
+            if (startupReport != null) {
+                startupReport.recordRun(System.nanoTime() - runStart);
+            }
 
-            if (askDisplay()) {
+            if (interactive && !config.watchMode() && askDisplay()) {
                 System.out.println("\n" + "=".repeat(80));
                 System.out.println(centerText("Displaying generated classes:", 80));
                 System.out.println("=".repeat(80));
-                for (String classCode : generatedClasses) {
-                    System.out.println(classCode);
-                    System.out.println("=".repeat(80));
-                    System.out.println("\n");
+                try (OutputSink.Reader reader = outputSink.reader()) {
+                    for (GeneratedClass generatedClass : generatedClasses) {
+                        System.out.println(generatedClass.code() != null ? generatedClass.code() : new String(reader.read(generatedClass.filePath()), StandardCharsets.UTF_8));
+                        System.out.println("=".repeat(80));
+                        System.out.println("\n");
+                    }
+                } catch (IOException e) {
+                    System.out.println("Error reading the generated classes from " + outputLocation + ": " + e.getMessage());
                 }
             } else {
-                String outputDir = (String) ((Map<String, Object>) data.get("configuration_variables")).getOrDefault("OUT_PUT_DIR", "./generated_classes");
                 System.out.println("\n" + "=".repeat(80));
                 System.out.println(centerText("Generation completed!!!", 80));
                 System.out.println("=".repeat(80));
-                System.out.println("Go to the '" + outputDir + "' directory to see the generated files.");
+                if (outputSink instanceof MemorySink) {
+                    System.out.println("The " + ((MemorySink) outputSink).files.size() + " generated files are kept in memory.");
+                } else {
+                    System.out.println("Go to the '" + outputLocation + "' " + (outputSink instanceof ArchiveSink ? "archive" : "directory") + " to see the generated files.");
+                }
                 System.out.println("Thank you for using our script!");
             }
+            return config;
         } else {
             System.out.println("\n" + "=".repeat(80));
             System.out.println(centerText("Error: Unable to generate classes.", 80));
             System.out.println("=".repeat(80));
             System.out.println("Reason: The data is invalid or missing.");
         }
-    }
+        return null;
+    }
+
+    // Batch mode: generates every spec given on the command line (paths or globs) in this JVM, without any prompt.
+    // Returns 0 when every spec was generated without errors, 1 when a spec failed, 2 for a usage error.
+    static int runBatch(String[] args) {
+        List<String> patterns = new ArrayList<>();
+        String outputRoot = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--help") || arg.equals("-h")) {
+                printBatchUsage();
+                return 0;
+            } else if (arg.equals("--output-root") && i + 1 < args.length) {
+                outputRoot = args[++i];
+            } else if (arg.startsWith("--output-root=")) {
+                outputRoot = arg.substring("--output-root=".length());
+            } else if (arg.startsWith("-")) {
+                System.out.println("Error: Unknown option " + arg + ".");
+                printBatchUsage();
+                return 2;
+            } else {
+                patterns.add(arg);
+            }
+        }
+
+        List<String> errors = new ArrayList<>();
+        List<String> specFiles = resolveSpecFiles(patterns, errors);
+        for (String error : errors) {
+            System.out.println("Error: " + error);
+        }
+        if (specFiles.isEmpty()) {
+            System.out.println("Error: No spec file to generate.");
+            printBatchUsage();
+            return 2;
+        }
+
+        Set<String> outputNames = new HashSet<>();
+        List<BatchResult> results = new ArrayList<>();
+        long batchStart = System.nanoTime();
+        batchRun = true;
+        try {
+            for (String specFile : specFiles) {
+                Map<String, Object> overrides = new HashMap<>();
+                overrides.put("watch_mode", false);
+                String outputDir = null;
+                if (outputRoot != null) {
+                    String name = Paths.get(specFile).getFileName().toString().replaceFirst("\\.json$", "");
+                    String outputName = name;
+                    for (int n = 2; !outputNames.add(outputName); n++) {
+                        outputName = name + "-" + n;
+                    }
+                    outputDir = outputRoot + "/" + outputName;
+                    overrides.put("OUT_PUT_DIR", outputDir);
+                }
+
+                long start = System.nanoTime();
+                GeneratorConfig config = generate(specFile, false, overrides);
+                results.add(new BatchResult(specFile, config != null ? config.outputDir() : outputDir, config != null,
+                        metrics.fileCount(), metrics.failureCount(), System.nanoTime() - start));
+            }
+        } finally {
+            batchRun = false;
+            if (generationPool != null) {
+                generationPool.shutdown();
+                generationPool = null;
+            }
+        }
+
+        System.out.println("\n" + "=".repeat(80));
+        System.out.println(centerText("Batch summary", 80));
+        System.out.println("=".repeat(80));
+        int failed = 0;
+        int withErrors = 0;
+        for (BatchResult result : results) {
+            if (!result.generated()) {
+                failed++;
+                System.out.println("❌ " + result.specFile() + ": unable to generate classes.");
+            } else {
+                if (result.failures() > 0) {
+                    withErrors++;
+                }
+                System.out.println(String.format(Locale.ROOT, "%s %s: %d files, %d errors in %.1f ms -> %s",
+                        result.failures() > 0 ? "⚠️" : "✅", result.specFile(), result.files(), result.failures(), result.nanos() / 1_000_000.0, result.outputDir()));
+            }
+        }
+        System.out.println(String.format(Locale.ROOT, "\n%d specs: %d generated, %d with errors, %d failed in %.1f ms.",
+                results.size(), results.size() - failed - withErrors, withErrors, failed, (System.nanoTime() - batchStart) / 1_000_000.0));
+        return failed + withErrors > 0 || !errors.isEmpty() ? 1 : 0;
+    }
+
+    record BatchResult(String specFile, String outputDir, boolean generated, long files, int failures, long nanos) {
+    }
+
+    private static void printBatchUsage() {
+        System.out.println("Usage: java ci.abidjan.adi.JavaClassGenerator [--output-root <directory>] [--startup-report] <spec.json | glob>...");
+        System.out.println("    Generates every spec without prompting, for example: specs/*.json \"services/**/data.json\".");
+        System.out.println("    --output-root <directory>  writes each spec into <directory>/<spec file name> instead of its OUT_PUT_DIR.");
+        System.out.println("    --startup-report           prints where the time goes from the JVM start to the end of the first spec.");
+        System.out.println("    Without arguments, data.json is generated interactively.");
+    }
+
+    // Expands the glob patterns (quoted, so that the shell leaves them alone) in sorted order and
+    // keeps the plain paths as they are. A spec given twice is generated once.
+    private static List<String> resolveSpecFiles(List<String> patterns, List<String> errors) {
+        Set<String> specFiles = new LinkedHashSet<>();
+        for (String pattern : patterns) {
+            int globStart = indexOfGlob(pattern);
+            if (globStart < 0) {
+                specFiles.add(pattern);
+                continue;
+            }
+            int baseEnd = pattern.lastIndexOf('/', globStart);
+            Path base = Paths.get(baseEnd < 0 ? "." : pattern.substring(0, Math.max(baseEnd, 1)));
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern.substring(baseEnd + 1));
+            List<String> matches = new ArrayList<>();
+            if (Files.isDirectory(base)) {
+                try (Stream<Path> paths = Files.walk(base)) {
+                    paths.filter(Files::isRegularFile)
+                            .filter(path -> matcher.matches(base.relativize(path)))
+                            .forEach(path -> matches.add(baseEnd < 0 ? base.relativize(path).toString() : path.toString()));
+                } catch (IOException e) {
+                    errors.add("Unable to list " + base + ": " + e.getMessage());
+                }
+            }
+            if (matches.isEmpty()) {
+                errors.add("No spec file matches " + pattern + ".");
+            }
+            Collections.sort(matches);
+            specFiles.addAll(matches);
+        }
+        return new ArrayList<>(specFiles);
+    }
+
+    private static int indexOfGlob(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if ("*?[{".indexOf(pattern.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Watch mode regenerates whenever the data file (or a file of "templates_directory") changes, keeping
+    // the compiled configuration, the templates and the worker pool from one run to the next.
+    private static void watch(String filePath) {
+        Path dataFile = Paths.get(filePath).toAbsolutePath();
+        Path templatesDirectory = compiledConfiguration.templatesDirectory().isEmpty() ? null : Paths.get(compiledConfiguration.templatesDirectory()).toAbsolutePath();
+        System.out.println("\n👀 Watching " + filePath + " for changes (press Ctrl+C to stop)...");
+
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            dataFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            if (templatesDirectory != null) {
+                templatesDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+
+            int run = 1;
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                while (key != null) {
+                    Path directory = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (directory.equals(templatesDirectory)) {
+                            compiledConfiguration = null;
+                            changed = true;
+                        } else if (dataFile.getFileName().equals(event.context())) {
+                            changed = true;
+                        }
+                    }
+                    key.reset();
+                    key = watchService.poll(WATCH_SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (!changed) {
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                GeneratorConfig config = generate(filePath, false);
+                printRunLatency(++run, config != null, start);
+            }
+        } catch (IOException e) {
+            System.out.println("Error while watching the file " + filePath + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (generationPool != null) {
+                generationPool.shutdown();
+                generationPool = null;
+            }
+        }
+    }
+
+    private static void printRunLatency(int run, boolean succeeded, long start) {
+        System.out.println(String.format(Locale.ROOT, "\n⏱️ Run %d %s in %.1f ms.", run, succeeded ? "completed" : "failed", (System.nanoTime() - start) / 1_000_000.0));
+    }
+
+    private static Map<String, Object> verifyData(String filePath) {
+        try {
+            Map<String, Object> data = objectMapper().readValue(new File(filePath), Map.class);
+            if (data.containsKey("entities") && data.containsKey("configuration_variables")) {
+                System.out.println("Data loaded from the file " + filePath + ".");
+                return data;
+            } else {
+                System.out.println("Error: The data loaded from the file " + filePath + " is not valid.");
+            }
+        } catch (IOException e) {
+            System.out.println("Error: The file " + filePath + " does not exist or contains invalid JSON data.");
+        }
+        return null;
+    }
+
+    private static Map<String, Object> readConfigurationVariables(String filePath) {
+        try (JsonParser parser = objectMapper().getFactory().createParser(new File(filePath))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String section = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.START_OBJECT && section.equals("configuration_variables")) {
+                    return objectMapper().readValue(parser, Map.class);
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            // verifyData reports unreadable files.
+        }
+        return null;
+    }
+
+    // First streaming pass: checks the structure of the file, builds the entity graph and keeps only the
+    // entities that other entities inherit from, since a child class cannot be rendered without its parent.
+    private static StreamedSpec verifyStreamedData(String filePath, GeneratorConfig config) {
+        StreamedSpec spec = new StreamedSpec(filePath);
+        try {
+            Set<Object> parentNames = new HashSet<>();
+            List<EntityNode> nodes = new ArrayList<>();
+            Set<String> interfaceNames = new HashSet<>();
+            Set<String> sections = streamSections(filePath, Map.of("entities", entity -> {
+                Object parentName = entity.get("entity_parent_name");
+                if (parentName instanceof String && !((String) parentName).isBlank()) {
+                    parentNames.add(parentName);
+                }
+                if (Boolean.TRUE.equals(entity.get("entity_is_parent"))) {
+                    spec.parentEntities.add(entity);
+                }
+                try {
+                    nodes.add(EntityNode.of(compileEntity(entity, config)));
+                } catch (IllegalArgumentException e) {
+                    // Reported when the entity is generated.
+                }
+            }, "interface_classes", interfaceClass -> interfaceNames.add(String.valueOf(interfaceClass.get("interface_name")))));
+            if (!sections.contains("entities")) {
+                System.out.println("Error: The data loaded from the file " + filePath + " is not valid.");
+                return null;
+            }
+
+            for (Map<String, Object> parentEntity : spec.parentEntities) {
+                parentNames.remove(parentEntity.get("entity_name"));
+            }
+            if (!parentNames.isEmpty()) {
+                streamSections(filePath, Map.of("entities", entity -> {
+                    if (parentNames.contains(entity.get("entity_name"))) {
+                        spec.parentEntities.add(entity);
+                    }
+                }));
+            }
+            System.out.println("Data loaded from the file " + filePath + ".");
+
+            spec.graph = EntityGraph.build(nodes, sections.contains("interface_classes") ? interfaceNames : null);
+            for (Map<String, Object> parentEntity : spec.parentEntities) {
+                try {
+                    spec.graph.addParent(compileEntity(parentEntity, config));
+                } catch (IllegalArgumentException e) {
+                    // Reported when the entity is generated.
+                }
+            }
+            return spec;
+        } catch (IOException e) {
+            System.out.println("Error: The file " + filePath + " does not exist or contains invalid JSON data.");
+        }
+        return null;
+    }
+
+    // Walks the top-level fields of the file and hands every element of the arrays that have a handler
+    // to that handler, one element at a time. Returns the names of all the top-level fields.
+    private static Set<String> streamSections(String filePath, Map<String, Consumer<Map<String, Object>>> handlers) throws IOException {
+        Set<String> sections = new HashSet<>();
+        try (JsonParser parser = objectMapper().getFactory().createParser(new File(filePath))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("The root of the file is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String section = parser.getCurrentName();
+                sections.add(section);
+                Consumer<Map<String, Object>> handler = handlers.get(section);
+                if (parser.nextToken() == JsonToken.START_ARRAY && handler != null) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        handler.accept(objectMapper().readValue(parser, Map.class));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return sections;
+    }
+
+    private static void generateFromData(Map<String, Object> data, GeneratorConfig config, List<GeneratedClass> generatedClasses, GenerationSummary summary) {
+        List<Map<String, Object>> rawEntities = (List<Map<String, Object>>) data.get("entities");
+        if (manifest != null) {
+            manifest.registerEntities(rawEntities, rawEntities);
+            manifest.registerItems(data, "interface_classes", "interface_name");
+            manifest.registerItems(data, "embeddable_classes", "embeddable_name");
+            manifest.registerItems(data, "enum_classes", "enum_name");
+        }
+
+        List<EntitySpec> compiledEntities = compileAll(rawEntities, "entity", "entity_name", entity -> compileEntity(entity, config));
+        List<InterfaceSpec> interfaceClasses = compileSection(data, "interface_classes", "interface", "interface_name", JavaClassGenerator::compileInterface);
+        List<EmbeddableSpec> embeddableClasses = compileSection(data, "embeddable_classes", "embeddable class", "embeddable_name", JavaClassGenerator::compileEmbeddable);
+        List<EnumSpec> enumClasses = compileSection(data, "enum_classes", "enum", "enum_name", JavaClassGenerator::compileEnum);
+
+        List<EntityNode> nodes = new ArrayList<>();
+        for (EntitySpec entity : compiledEntities) {
+            nodes.add(EntityNode.of(entity));
+        }
+        Set<String> interfaceNames = null;
+        if (interfaceClasses != null) {
+            interfaceNames = new HashSet<>();
+            for (InterfaceSpec interfaceClass : interfaceClasses) {
+                interfaceNames.add(interfaceClass.name());
+            }
+        }
+        EntityGraph graph = EntityGraph.build(nodes, interfaceNames);
+        for (EntitySpec entity : compiledEntities) {
+            graph.addParent(entity);
+        }
+        List<EntitySpec> entities = graph.retainLastDefinitions(compiledEntities);
+        summary.sectionSizes.put("entities", entities.size());
+        summary.cacheRegions.addAll(cacheRegions(entities));
+        summary.schemaIndexes.addAll(schemaIndexes(entities, graph));
+        if (interfaceClasses != null) {
+            summary.sectionSizes.put("interface_classes", interfaceClasses.size());
+        }
+        if (embeddableClasses != null) {
+            summary.sectionSizes.put("embeddable_classes", embeddableClasses.size());
+        }
+        if (enumClasses != null) {
+            summary.sectionSizes.put("enum_classes", enumClasses.size());
+        }
+
+        runArtifactKinds(
+                () -> generatedClasses.addAll(generateClasses(entities, config, graph)),
+                () -> {
+                    if (interfaceClasses != null) {
+                        generateInterfaces(interfaceClasses, config);
+                    }
+                },
+                () -> {
+                    if (embeddableClasses != null) {
+                        generateEmbeddables(embeddableClasses, config);
+                    }
+                },
+                () -> {
+                    if (enumClasses != null) {
+                        generateEnums(enumClasses, config);
+                    }
+                },
+                () -> generateRepositories(entities, config, graph),
+                () -> generateServices(entities, config, graph),
+                () -> generateControllers(entities, config, graph),
+                () -> generateProjections(entities, config),
+                () -> summary.configurationGenerated = generateConfigurationFiles(config, summary.cacheRegions, summary.schemaIndexes)
+        );
+    }
+
+    // Second streaming pass: elements are grouped in batches of "streaming_batch_size" and each batch is
+    // generated and released before the next one is read.
+    private static void generateFromStream(StreamedSpec spec, GeneratorConfig config, List<GeneratedClass> generatedClasses, GenerationSummary summary) throws IOException {
+        int batchSize = config.streamingBatchSize();
+
+        Map<String, Function<List<Map<String, Object>>, Integer>> generators = new HashMap<>();
+        generators.put("entities", rawEntities -> {
+            if (manifest != null) {
+                manifest.registerEntities(rawEntities, spec.parentEntities);
+            }
+            List<EntitySpec> entities = spec.graph.retainLastDefinitions(compileAll(rawEntities, "entity", "entity_name", entity -> compileEntity(entity, config)));
+            summary.cacheRegions.addAll(cacheRegions(entities));
+            summary.schemaIndexes.addAll(schemaIndexes(entities, spec.graph));
+            runArtifactKinds(
+                    () -> generatedClasses.addAll(generateClasses(entities, config, spec.graph)),
+                    () -> generateRepositories(entities, config, spec.graph),
+                    () -> generateServices(entities, config, spec.graph),
+                    () -> generateControllers(entities, config, spec.graph),
+                    () -> generateProjections(entities, config)
+            );
+            return entities.size();
+        });
+        generators.put("interface_classes", rawInterfaces -> {
+            List<InterfaceSpec> interfaceClasses = compileAll(rawInterfaces, "interface", "interface_name", JavaClassGenerator::compileInterface);
+            generateInterfaces(interfaceClasses, config);
+            return interfaceClasses.size();
+        });
+        generators.put("embeddable_classes", rawEmbeddables -> {
+            List<EmbeddableSpec> embeddableClasses = compileAll(rawEmbeddables, "embeddable class", "embeddable_name", JavaClassGenerator::compileEmbeddable);
+            generateEmbeddables(embeddableClasses, config);
+            return embeddableClasses.size();
+        });
+        generators.put("enum_classes", rawEnums -> {
+            List<EnumSpec> enumClasses = compileAll(rawEnums, "enum", "enum_name", JavaClassGenerator::compileEnum);
+            generateEnums(enumClasses, config);
+            return enumClasses.size();
+        });
+        Map<String, String> nameKeys = Map.of("entities", "entity_name", "interface_classes", "interface_name", "embeddable_classes", "embeddable_name", "enum_classes", "enum_name");
+
+        Map<String, List<Map<String, Object>>> batches = new HashMap<>();
+        Map<String, Consumer<Map<String, Object>>> handlers = new HashMap<>();
+        for (String section : generators.keySet()) {
+            List<Map<String, Object>> batch = new ArrayList<>(batchSize);
+            batches.put(section, batch);
+            handlers.put(section, item -> {
+                batch.add(item);
+                if (batch.size() >= batchSize) {
+                    generateBatch(section, batch, generators.get(section), nameKeys.get(section), summary);
+                }
+            });
+        }
+
+        Set<String> sections = streamSections(spec.filePath, handlers);
+        for (String section : generators.keySet()) {
+            generateBatch(section, batches.get(section), generators.get(section), nameKeys.get(section), summary);
+            if (sections.contains(section)) {
+                summary.sectionSizes.putIfAbsent(section, 0);
+            }
+        }
+        summary.configurationGenerated = generateConfigurationFiles(config, summary.cacheRegions, summary.schemaIndexes);
+    }
+
+    private static void generateBatch(String section, List<Map<String, Object>> batch, Function<List<Map<String, Object>>, Integer> generator, String nameKey, GenerationSummary summary) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (manifest != null && !section.equals("entities")) {
+            manifest.registerItems(Map.of(section, batch), section, nameKey);
+        }
+        summary.sectionSizes.merge(section, generator.apply(batch), Integer::sum);
+        if (manifest != null) {
+            manifest.release(section, nameKey, batch);
+        }
+        batch.clear();
+    }
+
+    private static ForkJoinPool createGenerationPool(GeneratorConfig config) {
+        if (!config.parallelGeneration()) {
+            return null;
+        }
+        int workerCount = config.parallelWorkerCount();
+        int parallelism = workerCount > 0 ? workerCount : Runtime.getRuntime().availableProcessors();
+        if (generationPool != null && generationPool.getParallelism() == parallelism) {
+            return generationPool;
+        }
+        return new ForkJoinPool(parallelism);
+    }
+
+    private static void runArtifactKinds(Runnable... artifactKinds) {
+        if (generationPool == null) {
+            for (Runnable artifactKind : artifactKinds) {
+                artifactKind.run();
+            }
+            return;
+        }
+        CompletableFuture.allOf(Arrays.stream(artifactKinds)
+                .map(artifactKind -> CompletableFuture.runAsync(artifactKind, generationPool))
+                .toArray(CompletableFuture[]::new)).join();
+    }
+
+    // Runs the task for each index and prints the error messages it returns in index order,
+    // so that a parallel run reports failures exactly like a sequential one.
+    private static void forEachIndex(String kind, int count, IntFunction<String> task) {
+        long start = System.nanoTime();
+        String[] errors = new String[count];
+        if (generationPool == null) {
+            for (int i = 0; i < count; i++) {
+                errors[i] = task.apply(i);
+            }
+        } else {
+            generationPool.invoke(ForkJoinTask.adapt(() -> IntStream.range(0, count).parallel().forEach(i -> errors[i] = task.apply(i))));
+        }
+        metrics.recordWallTime(kind, System.nanoTime() - start);
+        for (String error : errors) {
+            if (error != null) {
+                System.out.println(error);
+                for (String failure : error.split("\n")) {
+                    metrics.recordFailure(kind, failure);
+                }
+            }
+        }
+    }
+
+    // Compile step: turns the parsed JSON into the immutable records the generators render from, and reports
+    // the missing or mistyped values before anything is generated.
+    static GeneratorConfig compileConfiguration(Map<String, Object> configurationVariables) {
+        List<String> errors = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
+        String owner = "configuration_variables";
+        Map<String, Object> values = canonicalVariables(configurationVariables != null ? configurationVariables : Collections.emptyMap(), owner, warnings);
+        if (compiledConfiguration != null && compiledConfiguration.variables().equals(values)) {
+            return compiledConfiguration;
+        }
+        for (String warning : warnings) {
+            System.out.println("Warning: " + warning);
+        }
+
+        boolean jpaUsed = booleanValue(values, "jpa_used", null, owner, errors);
+        boolean highThroughputPersistence = booleanValue(values, "high_throughput_persistence", false, owner, errors);
+        boolean serializableModels = jpaUsed || booleanValue(values, "pojo_model_beanified", null, owner, errors);
+        String modelPackagePath = stringValue(values, "model_classes_package", "", owner, errors).replace(".", "/");
+        GeneratorConfig config = new GeneratorConfig(
+                values,
+                stringValue(values, "OUT_PUT_DIR", "./generated_classes", owner, errors),
+                values.containsKey("model_classes_package") ? String.valueOf(values.get("model_classes_package")) : null,
+                modelPackagePath,
+                jpaUsed,
+                booleanValue(values, "jakarta_persistence_api", false, owner, errors) ? "jakarta.persistence" : "javax.persistence",
+                serializableModels,
+                values.containsKey("generate_classes_following_packages"),
+                stringValue(values, "entity_suffix", "", owner, errors),
+                stringValue(values, "id_generated_value", highThroughputPersistence ? "SEQUENCE" : "IDENTITY", owner, errors),
+                booleanValue(values, "add_models_no_and_all_args_constructors", null, owner, errors),
+                booleanValue(values, "add_model_class_getters_setters", null, owner, errors),
+                booleanValue(values, "add_model_class_hashcode_equals_tostring_methods", null, owner, errors),
+                booleanValue(values, "spring_data_used_for_repositories_and_services", false, owner, errors),
+                stringValue(values, "model_classes__package", "", owner, errors),
+                stringValue(values, "repository_classes__packages", "com.example.repository", owner, errors),
+                stringValue(values, "service_classes__packages", "com.example.service", owner, errors),
+                stringValue(values, "controller_classes__packages", "com.example.controller", owner, errors),
+                booleanValue(values, "parallel_generation", false, owner, errors),
+                intValue(values, "parallel_worker_count", 0, owner, errors),
+                booleanValue(values, "incremental_generation", false, owner, errors),
+                booleanValue(values, "streaming_json_ingestion", false, owner, errors),
+                Math.max(1, intValue(values, "streaming_batch_size", 256, owner, errors)),
+                stringValue(values, "templates_directory", "", owner, errors),
+                stringValue(values, "output_sink", "directory", owner, errors),
+                stringValue(values, "output_archive", "", owner, errors),
+                booleanValue(values, "watch_mode", false, owner, errors),
+                stringValue(values, "metrics_report", "", owner, errors),
+                booleanValue(values, "jfr_events", false, owner, errors),
+                booleanValue(values, "compile_verification", false, owner, errors),
+                stringValue(values, "compile_verification_classpath", "", owner, errors),
+                booleanValue(values, "migration_verification", false, owner, errors),
+                stringValue(values, "migration_verification_classpath", "", owner, errors),
+                highThroughputPersistence,
+                Math.max(1, intValue(values, "id_sequence_allocation_size", 50, owner, errors)),
+                Math.max(1, intValue(values, "jdbc_batch_size", 50, owner, errors)),
+                Math.max(1, intValue(values, "max_page_size", 100, owner, errors)),
+                Math.max(1, intValue(values, "default_page_size", 20, owner, errors)),
+                booleanValue(values, "unbounded_find_all", false, owner, errors),
+                stringValue(values, "relationship_fetch_type", "LAZY", owner, errors),
+                Math.max(0, intValue(values, "collection_batch_size", 0, owner, errors)),
+                stringValue(values, "projection_classes_packages", "com.example.dto", owner, errors),
+                stringValue(values, "execution_model", "blocking", owner, errors),
+                Math.max(1, intValue(values, "connection_pool_size", 20, owner, errors)),
+                jpaUsed && booleanValue(values, "entity_identity_equality", true, owner, errors),
+                Math.max(1, intValue(values, "schema_migration_version", 1, owner, errors)),
+                booleanValue(values, "bulk_operations", true, owner, errors),
+                booleanValue(values, "read_replica_routing", false, owner, errors),
+                Math.max(1, intValue(values, "primary_pool_size", 10, owner, errors)),
+                Math.max(1, intValue(values, "replica_pool_size", 20, owner, errors)),
+                booleanValue(values, "streaming_export", false, owner, errors),
+                Math.max(1, intValue(values, "export_fetch_size", 1000, owner, errors)));
+
+        if (!OutputSink.KINDS.contains(config.outputSink())) {
+            errors.add(owner + ".output_sink must be one of " + String.join(", ", OutputSink.KINDS));
+        } else if (config.incrementalGeneration() && !config.outputSink().equals("directory")) {
+            errors.add(owner + ".incremental_generation requires the \"directory\" output_sink");
+        }
+        if (highThroughputPersistence && !config.idGeneratedValue().equals("SEQUENCE")) {
+            errors.add(owner + ".high_throughput_persistence requires the SEQUENCE id_generated_value, IDENTITY ids disable JDBC insert batching");
+        }
+        if (!EXECUTION_MODELS.contains(config.executionModel())) {
+            errors.add(owner + ".execution_model must be one of " + String.join(", ", EXECUTION_MODELS));
+        }
+        if (!config.relationshipFetchType().equals("LAZY") && !config.relationshipFetchType().equals("EAGER")) {
+            errors.add(owner + ".relationship_fetch_type must be LAZY or EAGER");
+        }
+        if (config.defaultPageSize() > config.maxPageSize()) {
+            errors.add(owner + ".default_page_size must not be greater than max_page_size (" + config.maxPageSize() + ")");
+        }
+        if (config.compileVerification() && ToolProvider.getSystemJavaCompiler() == null) {
+            errors.add(owner + ".compile_verification requires a JDK, no Java compiler is available in this runtime");
+        }
+        if (config.migrationVerification() && config.migrationVerificationClasspath().isBlank()) {
+            errors.add(owner + ".migration_verification requires migration_verification_classpath, the class path of the H2 database");
+        }
+
+        if (errors.isEmpty()) {
+            Templates.configure(config.templatesDirectory(), errors);
+        }
+        if (!errors.isEmpty()) {
+            for (String error : errors) {
+                System.out.println("Error: " + error);
+            }
+            return null;
+        }
+        compiledConfiguration = config;
+        return config;
+    }
+
+    static EntitySpec compileEntity(Map<String, Object> entity, GeneratorConfig config) {
+        List<String> errors = new ArrayList<>();
+        String name = stringValue(entity, "entity_name", null, "entity", errors);
+        List<String> supplementaryAnnotations = stringList(entity, "entity_supplementary_annotations", Collections.emptyList(), "entity", errors);
+        List<Map<String, Object>> rawFields = objectList(entity, "fields", "entity", errors);
+        List<FieldSpec> fields = new ArrayList<>(rawFields.size());
+        for (int i = 0; i < rawFields.size(); i++) {
+            fields.add(compileField(rawFields.get(i), "fields[" + i + "]", name, config, errors));
+        }
+        List<IndexSpec> indexes = compileIndexes(name + "s", fields, rawFields, config, errors);
+
+        Set<String> lombokAnnotations = new HashSet<>();
+        for (FieldSpec field : fields) {
+            for (String annotation : field.annotations()) {
+                if (LOMBOK_ANNOTATIONS.contains(annotation)) {
+                    lombokAnnotations.add(annotation);
+                }
+            }
+        }
+        List<String> classLombokAnnotations = new ArrayList<>();
+        for (String annotation : supplementaryAnnotations) {
+            if (LOMBOK_ANNOTATIONS.contains(annotation)) {
+                classLombokAnnotations.add(annotation);
+                lombokAnnotations.add(annotation);
+            }
+        }
+
+        boolean parent = booleanValue(entity, "entity_is_parent", null, "entity", errors);
+        String inheritanceStrategy = stringValue(entity, "entity_inheritance_strategy", "", "entity", errors);
+        String parentName = stringValue(entity, "entity_parent_name", "", "entity", errors);
+        CacheSpec cache = compileCache(entity, config, errors);
+        List<String> interfacesImplemented = stringList(entity, "interfaces_implemented", Collections.emptyList(), "entity", errors);
+        boolean lombokConstructors = lombokAnnotations.contains("@NoArgsConstructor") || lombokAnnotations.contains("@RequiredArgsConstructor") || lombokAnnotations.contains("@AllArgsConstructor");
+        boolean lombokAccessors = lombokAnnotations.contains("@Getter") || lombokAnnotations.contains("@Setter") || lombokAnnotations.contains("@Data") || lombokAnnotations.contains("@Value");
+        boolean lombokStandardMethods = lombokAnnotations.contains("@EqualsAndHashCode") || lombokAnnotations.contains("@ToString") || lombokAnnotations.contains("@Data") || lombokAnnotations.contains("@Value");
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join(", ", errors));
+        }
+
+        List<Map<String, Object>> fieldValues = new ArrayList<>(fields.size());
+        List<String> parameters = new ArrayList<>(fields.size());
+        for (FieldSpec field : fields) {
+            fieldValues.add(templateValues(
+                    "name", field.name(),
+                    "type", field.type(),
+                    "camelName", camelize(field.name()),
+                    "annotations", config.jpaUsed() ? addFieldAnnotations(field.annotations(), field.name(), field.type(), config.relationshipFetchType(), config.collectionBatchSize()) : ""));
+            parameters.add(field.type() + " " + field.name());
+        }
+        String idField = idField(fields);
+        List<ProjectionSpec> projections = compileProjections(entity, name, fields, idField, config, errors);
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join(", ", errors));
+        }
+        List<Map<String, Object>> fetchGraphs = compileFetchGraphs(fields);
+        boolean batchSizeUsed = config.jpaUsed() && collectionBatchSizeUsed(fields, config);
+        Set<String> fieldTypeImports = new TreeSet<>();
+        List<Map<String, Object>> finders = compileFinders(indexes, config, fieldTypeImports);
+        List<Map<String, Object>> bulkUpdates = compileBulkUpdates(fields, config, fieldTypeImports);
+        Map<String, Object> identity = compileIdentity(fields, fieldValues, idField, config.addGettersSetters() || lombokAccessors, config);
+        boolean naturalIdUsed = (Boolean) identity.get("naturalIdUsed");
+        boolean identityStandardMethods = config.identityEquality() && config.addStandardMethods() && !lombokStandardMethods;
+        List<Map<String, Object>> projectionValues = projectionValues(projections);
+        boolean uniqueFindersUsed = finders.stream().anyMatch(finder -> (Boolean) finder.get("finderUnique"));
+
+        String repositoryName = name + "Repository";
+        String serviceName = name + "Service";
+        Map<String, Object> names = templateValues(
+                "name", name,
+                "className", name + config.entitySuffix(),
+                "repositoryName", repositoryName,
+                "repositoryField", decapitalize(repositoryName),
+                "serviceName", serviceName,
+                "serviceField", decapitalize(serviceName),
+                "controllerName", name + "Controller",
+                "resourcePath", name.toLowerCase() + "s",
+                "idField", idField);
+        Map<String, Object> modelValues = templateValues(
+                "lombokUsed", !lombokAnnotations.isEmpty(),
+                "hibernateAnnotationsUsed", config.jpaUsed() && (batchSizeUsed || naturalIdUsed) || cache != null,
+                "batchSizeUsed", batchSizeUsed,
+                "cacheUsed", cache != null,
+                "objectsUsed", identityStandardMethods && (Boolean) identity.get("naturalKeyUsed"),
+                "classAnnotations", List.copyOf(classLombokAnnotations),
+                "fields", fieldValues,
+                "firstField", fieldValues.isEmpty() ? null : fieldValues.get(0),
+                "parameters", String.join(", ", parameters),
+                "constructors", config.addConstructors() && !lombokConstructors,
+                "gettersSetters", config.addGettersSetters() && !lombokAccessors,
+                "standardMethods", config.addStandardMethods() && !lombokStandardMethods);
+        modelValues.putAll(identity);
+        List<String> imports = List.copyOf(fieldTypeImports);
+        Map<String, Object> repositoryValues = templateValues(
+                "cacheUsed", cache != null,
+                "queryHintsUsed", cache != null || config.streamingExport(),
+                "fetchGraphs", fetchGraphs,
+                "fetchGraphsUsed", !fetchGraphs.isEmpty(),
+                "optionalUsed", !fetchGraphs.isEmpty() || uniqueFindersUsed,
+                "finders", finders,
+                "projections", projectionValues,
+                "bulkUpdates", bulkUpdates,
+                "fieldTypeImports", imports);
+        Map<String, Object> serviceValues = templateValues(
+                "finders", finders,
+                "projections", projectionValues,
+                "bulkUpdates", bulkUpdates,
+                "fieldTypeImports", imports);
+        Map<String, Object> controllerValues = templateValues(
+                "projections", projectionValues);
+
+        return new EntitySpec(
+                name,
+                name + config.entitySuffix(),
+                parent,
+                inheritanceStrategy,
+                parentName.isBlank() ? null : parentName,
+                String.valueOf(entity.get("discriminator_value")),
+                List.copyOf(classLombokAnnotations),
+                interfacesImplemented.isEmpty() ? null : interfacesImplemented,
+                List.copyOf(fields),
+                !lombokAnnotations.isEmpty(),
+                lombokConstructors,
+                lombokAccessors,
+                lombokStandardMethods,
+                cache,
+                List.copyOf(projections),
+                List.copyOf(indexes),
+                Collections.unmodifiableMap(names),
+                Collections.unmodifiableMap(modelValues),
+                Collections.unmodifiableMap(repositoryValues),
+                Collections.unmodifiableMap(serviceValues),
+                Collections.unmodifiableMap(controllerValues));
+    }
+
+    // An id field without a type or annotations gets a Long id, generated by a pooled sequence with
+    // "high_throughput_persistence"; any other such field becomes a String column.
+    private static FieldSpec compileField(Map<String, Object> field, String owner, String entityName, GeneratorConfig config, List<String> errors) {
+        String fieldName = stringValue(field, "field_name", null, owner, errors);
+        String fieldType = stringValue(field, "field_type", "", owner, errors);
+        List<String> annotations = stringList(field, "field_annotations", Collections.emptyList(), owner, errors);
+
+        String lowerName = fieldName.toLowerCase();
+        String lowerEntityName = entityName.toLowerCase();
+        if ((fieldName.equals("id") || lowerName.equals(lowerEntityName + "id") || lowerName.equals(lowerEntityName + "_id")) && fieldType.isEmpty()) {
+            fieldType = "Long";
+            if (annotations.isEmpty() && config.highThroughputPersistence()) {
+                String sequenceName = entityName.toLowerCase() + "_seq";
+                annotations = Arrays.asList("@Id",
+                        "@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = \"" + sequenceName + "\")",
+                        "@SequenceGenerator(name = \"" + sequenceName + "\", sequenceName = \"" + sequenceName + "\", allocationSize = " + config.idSequenceAllocationSize() + ")");
+            } else if (annotations.isEmpty()) {
+                annotations = Arrays.asList("@Id", "@GeneratedValue(strategy = GenerationType." + config.idGeneratedValue() + ")");
+            }
+        }
+        if (fieldType.isEmpty() && annotations.isEmpty()) {
+            fieldType = "String";
+            annotations = Arrays.asList("@Column(name = \"" + fieldName + "\")");
+        }
+        if (config.highThroughputPersistence() && annotations.stream().anyMatch(annotation -> annotation.contains("GenerationType.IDENTITY"))) {
+            System.out.println("Warning: The field '" + fieldName + "' of the entity '" + entityName + "' keeps its IDENTITY id, which disables JDBC insert batching for this entity. Remove its field_annotations to get a pooled sequence.");
+        }
+        return new FieldSpec(fieldName, fieldType, List.copyOf(annotations));
+    }
+
+    private static CacheSpec compileCache(Map<String, Object> entity, GeneratorConfig config, List<String> errors) {
+        String cacheStrategy = stringValue(entity, "entity_cache", "", "entity", errors);
+        int cacheMaxEntries = intValue(entity, "entity_cache_max_entries", 1000, "entity", errors);
+        int cacheTtlSeconds = intValue(entity, "entity_cache_ttl_seconds", 600, "entity", errors);
+        if (!cacheStrategy.isEmpty() && !CACHE_STRATEGIES.contains(cacheStrategy)) {
+            errors.add("entity.entity_cache must be one of " + String.join(", ", CACHE_STRATEGIES));
+        }
+        return config.jpaUsed() && !cacheStrategy.isEmpty()
+                ? new CacheSpec(cacheStrategy, Math.max(1, cacheMaxEntries), Math.max(1, cacheTtlSeconds))
+                : null;
+    }
+
+    private static String idField(List<FieldSpec> fields) {
+        for (FieldSpec field : fields) {
+            if (field.annotations().contains("@Id")) {
+                return field.name();
+            }
+        }
+        return "id";
+    }
+
+    private static List<Map<String, Object>> compileFetchGraphs(List<FieldSpec> fields) {
+        List<Map<String, Object>> fetchGraphs = new ArrayList<>();
+        for (FieldSpec field : fields) {
+            if (field.annotations().stream().anyMatch(RELATIONSHIP_ANNOTATIONS::contains)) {
+                fetchGraphs.add(templateValues("attribute", field.name(), "method", "findWith" + camelize(field.name()) + "ById"));
+            }
+        }
+        return fetchGraphs;
+    }
+
+    private static boolean collectionBatchSizeUsed(List<FieldSpec> fields, GeneratorConfig config) {
+        for (FieldSpec field : fields) {
+            for (String annotation : field.annotations()) {
+                if (RELATIONSHIP_ANNOTATIONS.contains(annotation)) {
+                    if (config.collectionBatchSize() > 0 && (annotation.startsWith("@OneToMany") || annotation.startsWith("@ManyToMany"))) {
+                        return true;
+                    }
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Derived query names, so that Spring Data implements them: findByNom, findByNomAndPrenom. The imports of
+    // their parameter types are added to fieldTypeImports.
+    private static List<Map<String, Object>> compileFinders(List<IndexSpec> indexes, GeneratorConfig config, Set<String> fieldTypeImports) {
+        List<Map<String, Object>> finders = new ArrayList<>();
+        Set<String> finderMethods = new HashSet<>();
+        for (IndexSpec index : indexes) {
+            if (index.fields().isEmpty()) {
+                continue;
+            }
+            List<String> properties = new ArrayList<>();
+            List<String> finderParameters = new ArrayList<>();
+            List<String> queryParameters = new ArrayList<>();
+            List<String> fieldNames = new ArrayList<>();
+            List<String> conditions = new ArrayList<>();
+            for (FieldSpec field : index.fields()) {
+                String typeImport = typeImport(field.type(), config);
+                if (typeImport != null) {
+                    fieldTypeImports.add(typeImport);
+                }
+                properties.add(camelize(field.name()));
+                finderParameters.add(field.type() + " " + field.name());
+                queryParameters.add("@Param(\"" + field.name() + "\") " + field.type() + " " + field.name());
+                fieldNames.add(field.name());
+                conditions.add("e." + field.name() + " = :" + field.name());
+            }
+            String method = "findBy" + String.join("And", properties);
+            if (finderMethods.add(method)) {
+                finders.add(templateValues(
+                        "finderMethod", method,
+                        "finderParameters", String.join(", ", finderParameters),
+                        "finderQueryParameters", String.join(", ", queryParameters),
+                        "finderArguments", String.join(", ", fieldNames),
+                        "bulkDeleteMethod", "bulkDeleteBy" + String.join("And", properties),
+                        "finderFields", fieldNames,
+                        "finderCondition", String.join(" AND ", conditions),
+                        "finderUnique", index.unique(),
+                        "indexName", index.name()));
+            }
+        }
+        return finders;
+    }
+
+    // Columns a bulk statement can set: not the id, the natural key, the embedded values nor the relationships.
+    private static List<Map<String, Object>> compileBulkUpdates(List<FieldSpec> fields, GeneratorConfig config, Set<String> fieldTypeImports) {
+        List<Map<String, Object>> bulkUpdates = new ArrayList<>();
+        if (!config.bulkOperations()) {
+            return bulkUpdates;
+        }
+        for (FieldSpec field : fields) {
+            if (!isAssociation(field) && !field.type().contains("<") && !field.annotations().contains("@Id") && !field.annotations().contains("@EmbeddedId")
+                    && !field.annotations().contains("@Embedded") && !field.annotations().contains("@NaturalId") && !field.annotations().contains("@Version")) {
+                String typeImport = typeImport(field.type(), config);
+                if (typeImport != null) {
+                    fieldTypeImports.add(typeImport);
+                }
+                bulkUpdates.add(templateValues(
+                        "name", field.name(),
+                        "type", field.type(),
+                        "bulkUpdateMethod", "bulkUpdate" + camelize(field.name())));
+            }
+        }
+        return bulkUpdates;
+    }
+
+    // With entity_identity_equality, equals() and hashCode() compare the @NaturalId fields, or else the id,
+    // and toString() leaves out the associations, so that none of them loads lazy associations.
+    private static Map<String, Object> compileIdentity(List<FieldSpec> fields, List<Map<String, Object>> fieldValues, String idField,
+                                                       boolean accessorsUsed, GeneratorConfig config) {
+        List<Map<String, Object>> toStringFields = fieldValues;
+        List<String> naturalKeyHash = new ArrayList<>();
+        List<String> naturalKeyEquals = new ArrayList<>();
+        String identityAccessor = null;
+        boolean naturalIdUsed = false;
+        if (config.identityEquality()) {
+            toStringFields = new ArrayList<>();
+            for (int i = 0; i < fields.size(); i++) {
+                FieldSpec field = fields.get(i);
+                String accessor = accessorsUsed ? "get" + camelize(field.name()) + "()" : field.name();
+                if (field.annotations().contains("@NaturalId")) {
+                    naturalKeyHash.add(accessor);
+                    naturalKeyEquals.add("Objects.equals(" + accessor + ", that." + accessor + ")");
+                    naturalIdUsed = true;
+                } else if (field.name().equals(idField) && field.annotations().contains("@Id")) {
+                    identityAccessor = accessor;
+                }
+                if (!isAssociation(field)) {
+                    toStringFields.add(fieldValues.get(i));
+                }
+            }
+        }
+        return templateValues(
+                "naturalIdUsed", naturalIdUsed,
+                "naturalKeyUsed", !naturalKeyHash.isEmpty(),
+                "naturalKeyHash", String.join(", ", naturalKeyHash),
+                "naturalKeyEquals", String.join("\n                && ", naturalKeyEquals),
+                "identityAccessor", identityAccessor,
+                "toStringFields", toStringFields);
+    }
+
+    private static List<Map<String, Object>> projectionValues(List<ProjectionSpec> projections) {
+        List<Map<String, Object>> projectionValues = new ArrayList<>(projections.size());
+        for (ProjectionSpec projection : projections) {
+            List<String> selection = new ArrayList<>();
+            for (FieldSpec field : projection.fields()) {
+                selection.add("e." + field.name());
+            }
+            projectionValues.add(templateValues(
+                    "projectionName", projection.name(),
+                    "projectionMethod", "find" + projection.name() + "Page",
+                    "projectionSelection", String.join(", ", selection),
+                    "projectionPath", projection.name().toLowerCase(),
+                    "projectionEndpoint", projection.endpoint()));
+        }
+        return projectionValues;
+    }
+
+    // Indexes of the table of an entity: its join columns, the "field_indexed" and "field_unique" columns and
+    // the composite groups. The join tables of its @ManyToManyJoinTable fields get theirs too. The flags are
+    // checked without JPA as well, but only JPA entities get indexes.
+    private static List<IndexSpec> compileIndexes(String table, List<FieldSpec> fields, List<Map<String, Object>> rawFields, GeneratorConfig config, List<String> errors) {
+        Set<String> indexedFields = new HashSet<>();
+        Set<String> uniqueFields = new HashSet<>();
+        Map<String, List<FieldSpec>> indexGroups = new LinkedHashMap<>();
+        Map<String, List<FieldSpec>> uniqueGroups = new LinkedHashMap<>();
+        for (int i = 0; i < rawFields.size(); i++) {
+            Map<String, Object> field = rawFields.get(i);
+            FieldSpec fieldSpec = fields.get(i);
+            String owner = "fields[" + i + "]";
+            boolean indexed = booleanValue(field, "field_indexed", false, owner, errors);
+            boolean unique = booleanValue(field, "field_unique", false, owner, errors);
+            String indexGroup = stringValue(field, "field_index_group", "", owner, errors);
+            String uniqueGroup = stringValue(field, "field_unique_group", "", owner, errors);
+            if ((indexed || unique || !indexGroup.isEmpty() || !uniqueGroup.isEmpty()) && isAssociation(fieldSpec)) {
+                errors.add(owner + ": '" + fieldSpec.name() + "' is a relationship and cannot be indexed, its join column is indexed automatically");
+                continue;
+            }
+            if (indexed) {
+                indexedFields.add(fieldSpec.name());
+            }
+            if (unique) {
+                uniqueFields.add(fieldSpec.name());
+            }
+            if (!indexGroup.isEmpty()) {
+                indexGroups.computeIfAbsent(indexGroup, group -> new ArrayList<>()).add(fieldSpec);
+            }
+            if (!uniqueGroup.isEmpty()) {
+                uniqueGroups.computeIfAbsent(uniqueGroup, group -> new ArrayList<>()).add(fieldSpec);
+            }
+        }
+        if (!config.jpaUsed()) {
+            return Collections.emptyList();
+        }
+
+        List<IndexSpec> indexes = new ArrayList<>();
+        List<IndexSpec> joinTableIndexes = new ArrayList<>();
+        for (FieldSpec field : fields) {
+            String joinColumn = joinColumnName(field);
+            if (joinColumn != null) {
+                indexes.add(new IndexSpec(indexName("idx", table, joinColumn), table, List.of(joinColumn), false, Collections.emptyList()));
+            }
+            if (field.annotations().contains("@ManyToManyJoinTable")) {
+                String baseType = field.type().contains("<") ? field.type().split("<")[1].replace(">", "") : field.type();
+                joinTableIndexes.addAll(joinTableIndexes(field.name(), baseType));
+            }
+            String column = columnName(field);
+            if (uniqueFields.contains(field.name())) {
+                indexes.add(new IndexSpec(indexName("uk", table, column), table, List.of(column), true, List.of(field)));
+            } else if (indexedFields.contains(field.name())) {
+                indexes.add(new IndexSpec(indexName("idx", table, column), table, List.of(column), false, List.of(field)));
+            }
+        }
+        for (Map.Entry<String, List<FieldSpec>> group : indexGroups.entrySet()) {
+            indexes.add(groupIndex("idx", table, group.getKey(), group.getValue(), false));
+        }
+        for (Map.Entry<String, List<FieldSpec>> group : uniqueGroups.entrySet()) {
+            indexes.add(groupIndex("uk", table, group.getKey(), group.getValue(), true));
+        }
+        indexes.addAll(joinTableIndexes);
+        return indexes;
+    }
+
+    private static IndexSpec groupIndex(String prefix, String table, String group, List<FieldSpec> fields, boolean unique) {
+        List<String> columns = new ArrayList<>(fields.size());
+        for (FieldSpec field : fields) {
+            columns.add(columnName(field));
+        }
+        return new IndexSpec(indexName(prefix, table, group), table, columns, unique, List.copyOf(fields));
+    }
+
+    // The join table of a @ManyToManyJoinTable field is read from both sides: each of its columns gets an index.
+    static List<IndexSpec> joinTableIndexes(String fieldName, String baseType) {
+        String tableName = fieldName + "_" + baseType.toLowerCase();
+        String joinColumn = fieldName + "_id";
+        String inverseJoinColumn = baseType.toLowerCase() + "_id";
+        return List.of(
+                new IndexSpec(indexName("idx", tableName, joinColumn), tableName, List.of(joinColumn), false, Collections.emptyList()),
+                new IndexSpec(indexName("idx", tableName, inverseJoinColumn), tableName, List.of(inverseJoinColumn), false, Collections.emptyList()));
+    }
+
+    // Long names are shortened with a hash, MySQL rejects identifiers of more than 64 characters.
+    private static String indexName(String prefix, String table, String suffix) {
+        String name = prefix + "_" + physicalName(table) + "_" + physicalName(suffix);
+        return name.length() <= 60 ? name : name.substring(0, 51) + "_" + String.format("%08x", name.hashCode());
+    }
+
+    private static String columnName(FieldSpec field) {
+        for (String annotation : field.annotations()) {
+            if (annotation.startsWith("@Column")) {
+                Matcher matcher = COLUMN_NAME.matcher(annotation);
+                if (matcher.find()) {
+                    return matcher.group(1);
+                }
+            }
+        }
+        return field.name();
+    }
+
+    // The join column of the owning side of a to-one association, null for any other field.
+    private static String joinColumnName(FieldSpec field) {
+        String joinColumn = null;
+        for (String annotation : field.annotations()) {
+            if (annotation.equals("@ManyToOneJoinColumn") || annotation.equals("@OneToOneJoinColumn") || !RELATIONSHIP_ANNOTATIONS.contains(annotation)
+                    && (annotation.startsWith("@ManyToOne") || annotation.startsWith("@OneToOne") && !annotation.contains("mappedBy"))) {
+                joinColumn = field.name() + "_id";
+                break;
+            }
+        }
+        if (joinColumn != null) {
+            for (String annotation : field.annotations()) {
+                if (annotation.startsWith("@JoinColumn")) {
+                    Matcher matcher = COLUMN_NAME.matcher(annotation);
+                    if (matcher.find()) {
+                        return matcher.group(1);
+                    }
+                }
+            }
+        }
+        return joinColumn;
+    }
+
+    // Name of a table or a column in the database under the naming strategy of Spring Boot
+    // (CamelCaseToUnderscoresNamingStrategy): "oeuvresRealisees" becomes "oeuvres_realisees".
+    static String physicalName(String name) {
+        StringBuilder builder = new StringBuilder(name.replace('.', '_'));
+        for (int i = 1; i < builder.length() - 1; i++) {
+            if (Character.isLowerCase(builder.charAt(i - 1)) && Character.isUpperCase(builder.charAt(i)) && Character.isLowerCase(builder.charAt(i + 1))) {
+                builder.insert(i++, '_');
+            }
+        }
+        return builder.toString().toLowerCase();
+    }
+
+    private static boolean isAssociation(FieldSpec field) {
+        for (String annotation : field.annotations()) {
+            if (RELATIONSHIP_ANNOTATIONS.contains(annotation)) {
+                return true;
+            }
+            for (String prefix : ASSOCIATION_ANNOTATION_PREFIXES) {
+                if (annotation.startsWith(prefix)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // A projection selects some columns of the entity into a record, without hydrating the entity.
+    private static List<ProjectionSpec> compileProjections(Map<String, Object> entity, String entityName, List<FieldSpec> fields, String idField,
+                                                           GeneratorConfig config, List<String> errors) {
+        if (!entity.containsKey("projections")) {
+            return Collections.emptyList();
+        }
+        Map<String, FieldSpec> fieldsByName = new HashMap<>();
+        for (FieldSpec field : fields) {
+            fieldsByName.put(field.name(), field);
+        }
+        List<ProjectionSpec> projections = new ArrayList<>();
+        List<Map<String, Object>> rawProjections = objectList(entity, "projections", "entity", errors);
+        for (int i = 0; i < rawProjections.size(); i++) {
+            Map<String, Object> projection = rawProjections.get(i);
+            String owner = "projections[" + i + "]";
+            String projectionName = stringValue(projection, "projection_name", null, owner, errors);
+            List<String> fieldNames = stringList(projection, "projection_fields", null, owner, errors);
+            boolean endpoint = booleanValue(projection, "projection_endpoint", true, owner, errors);
+            if (fieldNames.isEmpty() && projection.containsKey("projection_fields")) {
+                errors.add(owner + ".projection_fields is empty");
+            }
+            List<FieldSpec> components = new ArrayList<>(fieldNames.size());
+            for (String fieldName : fieldNames) {
+                FieldSpec field = fieldsByName.get(fieldName);
+                if (field == null && fieldName.equals(idField)) {
+                    field = new FieldSpec(fieldName, "Long", List.of());
+                }
+                if (field == null) {
+                    errors.add(owner + ".projection_fields: '" + fieldName + "' is not a field of the entity");
+                } else if (field.type().contains("<") || field.annotations().stream().anyMatch(RELATIONSHIP_ANNOTATIONS::contains)) {
+                    errors.add(owner + ".projection_fields: '" + fieldName + "' is a relationship, a projection selects columns");
+                } else {
+                    components.add(field);
+                }
+            }
+            if (projectionName != null) {
+                projections.add(new ProjectionSpec(projectionName, List.copyOf(components), endpoint));
+            }
+        }
+        return projections;
+    }
+
+    private static InterfaceSpec compileInterface(Map<String, Object> interfaceClass) {
+        List<String> errors = new ArrayList<>();
+        InterfaceSpec interfaceSpec = new InterfaceSpec(
+                stringValue(interfaceClass, "interface_name", null, "interface", errors),
+                stringList(interfaceClass, "methods", null, "interface", errors));
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join(", ", errors));
+        }
+        return interfaceSpec;
+    }
+
+    private static EmbeddableSpec compileEmbeddable(Map<String, Object> embeddable) {
+        List<String> errors = new ArrayList<>();
+        String name = stringValue(embeddable, "embeddable_name", null, "embeddable", errors);
+        List<FieldSpec> fields = new ArrayList<>();
+        List<Map<String, Object>> rawFields = objectList(embeddable, "fields", "embeddable", errors);
+        for (int i = 0; i < rawFields.size(); i++) {
+            Map<String, Object> field = rawFields.get(i);
+            String owner = "fields[" + i + "]";
+            fields.add(new FieldSpec(
+                    stringValue(field, "field_name", null, owner, errors),
+                    stringValue(field, "field_type", null, owner, errors),
+                    stringList(field, "field_annotations", Collections.emptyList(), owner, errors)));
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join(", ", errors));
+        }
+        return new EmbeddableSpec(name, List.copyOf(fields));
+    }
+
+    static EnumSpec compileEnum(Map<String, Object> enumClass) {
+        List<String> errors = new ArrayList<>();
+        EnumSpec enumSpec = new EnumSpec(
+                stringValue(enumClass, "enum_name", null, "enum", errors),
+                stringList(enumClass, "enum_values", null, "enum", errors));
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join(", ", errors));
+        }
+        return enumSpec;
+    }
+
+    // Compiles every element and reports the invalid ones, which are left out of the generation.
+    private static <T> List<T> compileAll(List<Map<String, Object>> items, String kind, String nameKey, Function<Map<String, Object>, T> compiler) {
+        GenerationMetrics.Phase phase = metrics.startPhase("validate");
+        List<T> compiled = new ArrayList<>(items.size());
+        for (Map<String, Object> item : items) {
+            try {
+                compiled.add(compiler.apply(item));
+            } catch (IllegalArgumentException e) {
+                String error = "Error: Invalid " + kind + " '" + item.getOrDefault(nameKey, "Unknown") + "': " + e.getMessage();
+                System.out.println(error);
+                metrics.recordFailure("validate", error);
+            }
+        }
+        phase.end();
+        return compiled;
+    }
+
+    // Reads a deprecated spelling as the variable it stands for, and reports the variables the generator does not
+    // know: only the templates of "templates_directory" can read them.
+    private static Map<String, Object> canonicalVariables(Map<String, Object> values, String owner, List<String> warnings) {
+        Map<String, Object> canonical = values;
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            String key = entry.getKey();
+            String alias = CONFIGURATION_ALIASES.get(key);
+            if (alias != null) {
+                if (canonical == values) {
+                    canonical = new LinkedHashMap<>(values);
+                }
+                canonical.remove(key);
+                if (values.containsKey(alias)) {
+                    warnings.add(owner + "." + key + " is ignored, " + alias + " is set");
+                } else {
+                    canonical.put(alias, entry.getValue());
+                    warnings.add(owner + "." + key + " is deprecated, use " + alias);
+                }
+            } else if (!CONFIGURATION_KEYS.contains(key)) {
+                warnings.add(owner + "." + key + " is not a variable of the generator, only the templates can read it");
+            }
+        }
+        return canonical;
+    }
+
+    private static <T> List<T> compileSection(Map<String, Object> data, String section, String kind, String nameKey, Function<Map<String, Object>, T> compiler) {
+        if (!data.containsKey(section)) {
+            return null;
+        }
+        return compileAll((List<Map<String, Object>>) data.get(section), kind, nameKey, compiler);
+    }
+
+    // A null default value means the key is required.
+    private static boolean booleanValue(Map<String, Object> values, String key, Boolean defaultValue, String owner, List<String> errors) {
+        Object value = values.get(key);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value != null) {
+            errors.add(owner + "." + key + " must be true or false");
+        } else if (defaultValue == null) {
+            errors.add(owner + "." + key + " is missing (true or false expected)");
+        } else {
+            return defaultValue;
+        }
+        return false;
+    }
+
+    private static String stringValue(Map<String, Object> values, String key, String defaultValue, String owner, List<String> errors) {
+        Object value = values.get(key);
+        if (value instanceof String) {
+            return (String) value;
+        }
+        if (value != null) {
+            errors.add(owner + "." + key + " must be a string");
+        } else if (defaultValue == null) {
+            errors.add(owner + "." + key + " is missing");
+        } else {
+            return defaultValue;
+        }
+        return "";
+    }
+
+    private static int intValue(Map<String, Object> values, String key, int defaultValue, String owner, List<String> errors) {
+        Object value = values.get(key);
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        if (value != null) {
+            errors.add(owner + "." + key + " must be an integer");
+        }
+        return defaultValue;
+    }
+
+    private static List<String> stringList(Map<String, Object> values, String key, List<String> defaultValue, String owner, List<String> errors) {
+        Object value = values.get(key);
+        if (value instanceof List && ((List<?>) value).stream().allMatch(item -> item instanceof String)) {
+            return List.copyOf((List<String>) value);
+        }
+        if (value != null) {
+            errors.add(owner + "." + key + " must be a list of strings");
+        } else if (defaultValue == null) {
+            errors.add(owner + "." + key + " is missing");
+        } else {
+            return defaultValue;
+        }
+        return Collections.emptyList();
+    }
+
+    private static List<Map<String, Object>> objectList(Map<String, Object> values, String key, String owner, List<String> errors) {
+        Object value = values.get(key);
+        if (value instanceof List && ((List<?>) value).stream().allMatch(item -> item instanceof Map)) {
+            return (List<Map<String, Object>>) value;
+        }
+        errors.add(owner + "." + key + (value == null ? " is missing" : " must be a list of objects"));
+        return Collections.emptyList();
+    }
+
+    // Model classes are generated in the topological order of the inheritance graph; each inheritance
+    // tree is one unit of work, so parallel workers take independent subtrees.
+    private static List<GeneratedClass> generateClasses(List<EntitySpec> entities, GeneratorConfig config, EntityGraph graph) {
+        List<List<EntitySpec>> subtrees = graph.schedule(entities);
+        GeneratedClass[][] classCodes = new GeneratedClass[subtrees.size()][];
+
+        forEachIndex("models", subtrees.size(), i -> {
+            List<EntitySpec> subtree = subtrees.get(i);
+            classCodes[i] = new GeneratedClass[subtree.size()];
+            List<String> errors = new ArrayList<>();
+            for (int j = 0; j < subtree.size(); j++) {
+                EntitySpec entity = subtree.get(j);
+                try {
+                    classCodes[i][j] = generateModelClass(entity, config, graph);
+                } catch (Exception e) {
+                    errors.add("Error while generating the class " + entity.name() + ": " + e.getMessage());
+                }
+            }
+            return errors.isEmpty() ? null : String.join("\n", errors);
+        });
+
+        List<GeneratedClass> generatedClasses = new ArrayList<>();
+        for (GeneratedClass[] subtreeCodes : classCodes) {
+            for (GeneratedClass classCode : subtreeCodes) {
+                if (classCode != null) {
+                    generatedClasses.add(classCode);
+                }
+            }
+        }
+        return generatedClasses;
+    }
+
+    // A model class is released as soon as it is written: only its path is kept for the display. The
+    // code itself is kept when "generate_classes_following_packages" is off, since it is not written.
+    // An unchanged class is one that incremental generation left as it was.
+    record GeneratedClass(String filePath, String code, boolean unchanged) {
+    }
+
+    private static GeneratedClass generateModelClass(EntitySpec entity, GeneratorConfig config, EntityGraph graph) throws IOException {
+        String filePath = null;
+        if (config.generateClassesFollowingPackages()) {
+            String classOutputDir = config.outputDir() + "/" + config.modelPackagePath();
+            filePath = classOutputDir + "/" + entity.className() + ".java";
+            if (manifest != null && manifest.isUpToDate(entity.sourceKey(), filePath)) {
+                if (verifier != null) {
+                    verifier.addExisting("models", entity.name(), filePath);
+                }
+                return new GeneratedClass(filePath, null, true);
+            }
+        }
+
+        ArtifactGeneratedEvent event = metrics.jfrEvents ? new ArtifactGeneratedEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        long start = System.nanoTime();
+        String classCode = generateClass(entity, config, graph);
+        long rendered = System.nanoTime();
+        int bytes = 0;
+        if (filePath != null) {
+            bytes = writeGeneratedFile(entity.sourceKey(), filePath, classCode);
+        }
+        metrics.recordFile("models", entity.name(), rendered - start, System.nanoTime() - rendered, bytes);
+        if (verifier != null) {
+            verifier.add("models", entity.name(), filePath != null ? filePath : config.outputDir() + "/" + config.modelPackagePath() + "/" + entity.className() + ".java", classCode);
+        }
+        if (event != null) {
+            event.kind = "models";
+            event.name = entity.name();
+            event.bytes = bytes;
+            event.commit();
+        }
+        return filePath != null ? new GeneratedClass(filePath, null, false) : new GeneratedClass(null, classCode, false);
+    }
+
+    static String generateClass(EntitySpec entity, GeneratorConfig config, EntityGraph graph) {
+        String typeAnnotations = "";
+        StringBuilder declaration = new StringBuilder();
+
+        if (entity.parent()) {
+            if (config.jpaUsed()) {
+                typeAnnotations = generateInheritanceAnnotations(entity);
+            }
+            declaration.append("public abstract class ").append(entity.className());
+        } else if (entity.parentName() != null) {
+            EntitySpec parentEntity = graph.parentOf(entity);
+            if (parentEntity == null) {
+                throw new IllegalArgumentException("Parent entity '" + entity.parentName() + "' not found for entity '" + entity.name() + "'");
+            }
+
+            String parentStrategy = parentEntity.inheritanceStrategy();
+
+            if (config.jpaUsed()) {
+                if (parentStrategy.equals("SINGLE_TABLE")) {
+                    typeAnnotations = "@Entity\n@DiscriminatorValue(\"" + entity.discriminatorValue() + "\")\n";
+                } else if (parentStrategy.equals("JOINED") || parentStrategy.equals("TABLE_PER_CLASS")
+                        || parentStrategy.equals("MAPPED_SUPERCLASS") || parentStrategy.equals("MAPPED_SUPER_CLASS")) {
+                    typeAnnotations = "@Entity\n" + tableAnnotation(entity);
+                }
+            }
+
+            declaration.append("public class ").append(entity.className()).append(" extends ").append(parentEntity.className());
+        } else {
+            if (config.jpaUsed()) {
+                typeAnnotations = "@Entity\n" + tableAnnotation(entity);
+            }
+            declaration.append("public class ").append(entity.className());
+        }
+
+        if (entity.cache() != null) {
+            typeAnnotations += "@Cacheable\n@Cache(usage = CacheConcurrencyStrategy." + entity.cache().strategy() + ", region = \"" + entity.name() + "\")\n";
+        }
+
+        if (entity.interfacesImplemented() != null || config.serializableModels()) {
+            declaration.append(" implements");
+            if (config.serializableModels()) {
+                declaration.append(" Serializable");
+                if (entity.interfacesImplemented() != null) {
+                    declaration.append(", ").append(String.join(", ", entity.interfacesImplemented()));
+                }
+            } else {
+                declaration.append(" ").append(String.join(", ", entity.interfacesImplemented()));
+            }
+        }
+
+        return Templates.render("model-class", artifactSettings(config), entity.names(), entity.modelValues(),
+                templateValues("typeAnnotations", typeAnnotations, "declaration", declaration));
+    }
+
+    private static String tableAnnotation(EntitySpec entity) {
+        String table = entity.name() + "s";
+        List<String> indexes = new ArrayList<>();
+        for (IndexSpec index : entity.indexes()) {
+            if (index.table().equals(table)) {
+                indexes.add("    " + index.annotation());
+            }
+        }
+        if (indexes.isEmpty()) {
+            return "@Table(name=\"" + table + "\")\n";
+        }
+        return "@Table(name=\"" + table + "\", indexes = {\n" + String.join(",\n", indexes) + "\n})\n";
+    }
+
+    // Whether the entity is mapped to a table of its own, to which the indexes of its fields belong.
+    private static boolean hasOwnTable(EntitySpec entity, EntityGraph graph) {
+        if (entity.parent()) {
+            return List.of("SINGLE_TABLE", "JOINED", "TABLE_PER_CLASS").contains(entity.inheritanceStrategy());
+        } else if (entity.parentName() != null) {
+            EntitySpec parentEntity = graph.parentOf(entity);
+            return parentEntity != null && !parentEntity.inheritanceStrategy().equals("SINGLE_TABLE")
+                    && List.of("JOINED", "TABLE_PER_CLASS", "MAPPED_SUPERCLASS", "MAPPED_SUPER_CLASS").contains(parentEntity.inheritanceStrategy());
+        }
+        return true;
+    }
+
+    private static String generateInheritanceAnnotations(EntitySpec entity) {
+        StringBuilder annotations = new StringBuilder();
+        String inheritanceStrategy = entity.inheritanceStrategy();
+
+        if (inheritanceStrategy.equals("SINGLE_TABLE")) {
+            annotations.append("@Entity\n").append(tableAnnotation(entity)).append("@Inheritance(strategy = InheritanceType.SINGLE_TABLE)\n");
+        } else if (inheritanceStrategy.equals("JOINED")) {
+            annotations.append("@Entity\n").append(tableAnnotation(entity)).append("@Inheritance(strategy = InheritanceType.JOINED)\n");
+        } else if (inheritanceStrategy.equals("TABLE_PER_CLASS")) {
+            annotations.append("@Entity\n").append(tableAnnotation(entity)).append("@Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)\n");
+        } else if (inheritanceStrategy.equals("MAPPED_SUPERCLASS") || inheritanceStrategy.equals("MAPPED_SUPER_CLASS")) {
+            annotations.append("@MappedSuperclass\n");
+        }
+
+        return annotations.toString();
+    }
+
+    // fetchType applies to the owning side of the to-one associations, which JPA fetches eagerly by default;
+    // a batchSize above 0 loads the collections of several entities in one query with @BatchSize.
+    static String addFieldAnnotations(List<String> annotations, String fieldName, String fieldType, String fetchType, int batchSize) {
+        StringBuilder result = new StringBuilder();
+        String baseType = fieldType.contains("<") ? fieldType.split("<")[1].replace(">", "") : fieldType;
+        String toOneFetch = fetchType.equals("LAZY") ? "(fetch = FetchType.LAZY)" : "";
+        String collectionBatchSize = batchSize > 0 ? "    @BatchSize(size = " + batchSize + ")\n" : "";
+
+        for (String annotation : annotations) {
+            switch (annotation) {
+                case "@OneToOneJoinColumn":
+                    result.append("    @OneToOne").append(toOneFetch).append("\n    @JoinColumn(name = \"").append(fieldName).append("_id\")\n");
+                    break;
+                case "@OneToOneMappedBy":
+                    result.append("    @OneToOne(mappedBy = \"").append(fieldName).append("\")\n");
+                    break;
+                case "@OneToManyMappedBy":
+                    result.append("    @OneToMany(mappedBy = \"").append(fieldName).append("\")\n").append(collectionBatchSize);
+                    break;
+                case "@ManyToOneJoinColumn":
+                    result.append("    @ManyToOne").append(toOneFetch).append("\n    @JoinColumn(name = \"").append(fieldName).append("_id\")\n");
+                    break;
+                case "@ManyToManyJoinTable":
+                    String tableName = fieldName + "_" + baseType.toLowerCase();
+                    result.append("    @ManyToMany\n    @JoinTable(\n");
+                    result.append("        name = \"").append(tableName).append("\",\n");
+                    result.append("        joinColumns = @JoinColumn(name = \"").append(fieldName).append("_id\"),\n");
+                    result.append("        inverseJoinColumns = @JoinColumn(name = \"").append(baseType.toLowerCase()).append("_id\"),\n");
+                    result.append("        indexes = {\n");
+                    List<IndexSpec> joinTableIndexes = joinTableIndexes(fieldName, baseType);
+                    for (int i = 0; i < joinTableIndexes.size(); i++) {
+                        result.append("            ").append(joinTableIndexes.get(i).annotation()).append(i < joinTableIndexes.size() - 1 ? ",\n" : "\n");
+                    }
+                    result.append("        }\n");
+                    result.append("    )\n").append(collectionBatchSize);
+                    break;
+                case "@ManyToManyMappedBy":
+                    result.append("    @ManyToMany(mappedBy = \"").append(fieldName).append("\")\n").append(collectionBatchSize);
+                    break;
+                case "@Enum":
+                case "@Enumerated":
+                    result.append("    @Enumerated(EnumType.STRING)\n");
+                    break;
+                case "@Embedded":
+                    result.append("    @Embedded\n");
+                    break;
+                default:
+                    result.append("    ").append(annotation).append("\n");
+                    break;
+            }
+        }
+        return result.toString();
+    }
+
+    private static void generateInterfaces(List<InterfaceSpec> interfaceClasses, GeneratorConfig config) {
+        String _package = config.sharedPackage();
+        String interfaceOutputDir = config.outputDir() + "/" + _package.replace(".", "/");
+
+        forEachIndex("interfaces", interfaceClasses.size(), i -> {
+            InterfaceSpec interfaceClass = interfaceClasses.get(i);
+            return emitFile("interfaces", "interface", interfaceClass.name(), interfaceClass.sourceKey(), interfaceOutputDir + "/" + interfaceClass.name() + ".java",
+                    () -> Templates.render("interface", templateValues(
+                            "package", _package,
+                            "name", interfaceClass.name(),
+                            "methods", interfaceClass.methods())));
+        });
+    }
+
+    private static void generateEmbeddables(List<EmbeddableSpec> embeddableClasses, GeneratorConfig config) {
+        String _package = config.sharedPackage();
+        String embeddableOutputDir = config.outputDir() + "/" + _package.replace(".", "/");
+
+        forEachIndex("embeddables", embeddableClasses.size(), i -> {
+            EmbeddableSpec embeddable = embeddableClasses.get(i);
+            return emitFile("embeddables", "embeddable", embeddable.name(), embeddable.sourceKey(), embeddableOutputDir + "/" + embeddable.name() + ".java", () -> {
+                List<Map<String, Object>> fieldValues = new ArrayList<>(embeddable.fields().size());
+                for (FieldSpec field : embeddable.fields()) {
+                    fieldValues.add(templateValues(
+                            "name", field.name(),
+                            "type", field.type(),
+                            "annotations", config.jpaUsed() ? field.annotations() : Collections.emptyList()));
+                }
+                return Templates.render("embeddable", templateValues(
+                        "package", _package,
+                        "jpaUsed", config.jpaUsed(),
+                        "persistencePackage", config.persistencePackage(),
+                        "name", embeddable.name(),
+                        "fields", fieldValues));
+            });
+        });
+    }
+
+    private static void generateEnums(List<EnumSpec> enumClasses, GeneratorConfig config) {
+        String _package = config.sharedPackage();
+        String enumOutputDir = config.outputDir() + "/" + _package.replace(".", "/");
+
+        forEachIndex("enums", enumClasses.size(), i -> {
+            EnumSpec enumClass = enumClasses.get(i);
+            return emitFile("enums", "enum", enumClass.name(), enumClass.sourceKey(), enumOutputDir + "/" + enumClass.name() + ".java",
+                    () -> generateEnum(enumClass, _package));
+        });
+    }
+
+    static String generateEnum(EnumSpec enumClass, String _package) {
+        String enumName = enumClass.name();
+        List<String> enumValues = enumClass.values();
+        String privateField = null;
+        for (String value : enumValues) {
+            if (!(value.contains("(") && value.contains(")"))) {
+                privateField = value;
+                break;
+            }
+        }
+
+        List<Map<String, Object>> constants = new ArrayList<>();
+        boolean valued = false;
+        for (String value : enumValues) {
+            if (value.equals(privateField)) {
+                continue;
+            }
+            if (value.contains("(") && value.contains(")")) {
+                valued = true;
+                constants.add(templateValues("constant", value.split("\\(")[0] + "(" + value.split("\\(")[1].replace(")", "") + ")", "terminator", ","));
+            } else {
+                constants.add(templateValues("constant", value, "terminator", ","));
+            }
+        }
+        if (!constants.isEmpty()) {
+            constants.get(constants.size() - 1).put("terminator", ";\n");
+        }
+
+        return Templates.render("enum", templateValues(
+                "package", _package,
+                "name", enumName,
+                "constants", constants,
+                "privateField", privateField,
+                "valueField", privateField == null && valued));
+    }
+
+    // The id of an entity, declared by the entity or inherited from its parent entities, and a Long "id" when none
+    // of them declares one. The type is boxed: a null afterId asks for the first page of the keyset pagination.
+    private static Map<String, Object> idValues(EntitySpec entity, GeneratorConfig config, EntityGraph graph, List<String> imports) {
+        for (EntitySpec current = entity; current != null; current = current.parentName() != null ? graph.parentOf(current) : null) {
+            for (FieldSpec field : current.fields()) {
+                if (field.annotations().contains("@Id")) {
+                    String type = BOXED_TYPES.getOrDefault(field.type(), field.type());
+                    String typeImport = typeImport(type, config);
+                    return templateValues(
+                            "idField", field.name(),
+                            "idType", type,
+                            "idTypeImport", typeImport != null && !imports.contains(typeImport) ? typeImport : null);
+                }
+            }
+        }
+        return templateValues("idField", "id", "idType", "Long", "idTypeImport", null);
+    }
+
+    // Columns of the exports, read through the getters: the id, then the basic fields of the entity and of its
+    // parent entities, from the root down. There are none when a class of the hierarchy has no getters.
+    private static Map<String, Object> exportValues(EntitySpec entity, GeneratorConfig config, EntityGraph graph) {
+        List<EntitySpec> hierarchy = new ArrayList<>();
+        for (EntitySpec current = entity; current != null; current = current.parentName() != null ? graph.parentOf(current) : null) {
+            if (!config.addGettersSetters() && !current.lombokAccessors()) {
+                return templateValues("exportUsed", false);
+            }
+            hierarchy.add(0, current);
+        }
+        Map<String, String> accessors = new LinkedHashMap<>();
+        for (EntitySpec current : hierarchy) {
+            for (FieldSpec field : current.fields()) {
+                if (field.annotations().contains("@Id")) {
+                    accessors.put(field.name(), "get" + camelize(field.name()) + "()");
+                }
+            }
+        }
+        if (accessors.isEmpty()) {
+            String idField = (String) idValues(entity, config, graph, List.of()).get("idField");
+            accessors.put(idField, "get" + camelize(idField) + "()");
+        }
+        for (EntitySpec current : hierarchy) {
+            for (FieldSpec field : current.fields()) {
+                if (!isAssociation(field) && !field.type().contains("<") && !field.annotations().contains("@Embedded") && !field.annotations().contains("@EmbeddedId")) {
+                    accessors.putIfAbsent(field.name(), "get" + camelize(field.name()) + "()");
+                }
+            }
+        }
+        List<Map<String, Object>> columns = new ArrayList<>(accessors.size());
+        int i = 0;
+        for (Map.Entry<String, String> accessor : accessors.entrySet()) {
+            columns.add(templateValues(
+                    "name", accessor.getKey(),
+                    "accessor", accessor.getValue(),
+                    "separator", ++i < accessors.size() ? "','" : "'\\n'"));
+        }
+        return templateValues(
+                "exportUsed", true,
+                "exportHeader", String.join(",", accessors.keySet()),
+                "exportColumns", columns);
+    }
+
+    // Template values that are the same for every entity, built once per configuration.
+    private static volatile Map.Entry<GeneratorConfig, Map<String, Object>> artifactSettings;
+
+    static Map<String, Object> artifactSettings(GeneratorConfig config) {
+        Map.Entry<GeneratorConfig, Map<String, Object>> cached = artifactSettings;
+        if (cached != null && cached.getKey() == config) {
+            return cached.getValue();
+        }
+        boolean asyncServices = config.executionModel().equals("async");
+        Map<String, Object> settings = Collections.unmodifiableMap(templateValues(
+                "modelPackage", config.modelPackage(),
+                "jpaUsed", config.jpaUsed(),
+                "persistencePackage", config.persistencePackage(),
+                "serializableModels", config.serializableModels(),
+                "identityEquality", config.identityEquality(),
+                "springDataUsed", config.springDataUsed(),
+                "repositoryPackage", config.repositoryPackage(),
+                "servicePackage", config.servicePackage(),
+                "controllerPackage", config.controllerPackage(),
+                "projectionPackage", config.projectionPackage(),
+                "maxPageSize", config.maxPageSize(),
+                "defaultPageSize", config.defaultPageSize(),
+                "unboundedFindAll", config.unboundedFindAll(),
+                "asyncServices", asyncServices,
+                "futureStart", asyncServices ? "CompletableFuture<" : "",
+                "futureEnd", asyncServices ? ">" : "",
+                "asyncSuffix", asyncServices ? "Async" : "",
+                "highThroughputPersistence", config.highThroughputPersistence(),
+                "jdbcBatchSize", config.jdbcBatchSize(),
+                "bulkOperations", config.bulkOperations(),
+                "readReplicaRouting", config.readReplicaRouting(),
+                "streamingExport", config.streamingExport(),
+                "exportFetchSize", config.exportFetchSize(),
+                "entityManagerUsed", config.highThroughputPersistence() || config.streamingExport(),
+                "transactionsUsed", config.highThroughputPersistence() || config.bulkOperations() || config.readReplicaRouting()
+                        || config.streamingExport() || asyncServices));
+        artifactSettings = Map.entry(config, settings);
+        return settings;
+    }
+
+    private static void generateRepositories(List<EntitySpec> entities, GeneratorConfig config, EntityGraph graph) {
+        String _package = config.repositoryPackage();
+        String repositoryOutputDir = config.outputDir() + "/" + _package.replace(".", "/");
+
+        Map<String, Object> settings = artifactSettings(config);
+        forEachIndex("repositories", entities.size(), i -> {
+            EntitySpec entity = entities.get(i);
+            return emitFile("repositories", "repository", entity.name(), entity.sourceKey(), repositoryOutputDir + "/" + entity.names().get("repositoryName") + ".java",
+                    () -> Templates.render("repository", settings, entity.names(), entity.repositoryValues(),
+                            idValues(entity, config, graph, (List<String>) entity.repositoryValues().get("fieldTypeImports"))));
+        });
+    }
+
+    private static void generateServices(List<EntitySpec> entities, GeneratorConfig config, EntityGraph graph) {
+        String _package = config.servicePackage();
+        String serviceOutputDir = config.outputDir() + "/" + _package.replace(".", "/");
+
+        Map<String, Object> settings = artifactSettings(config);
+        forEachIndex("services", entities.size(), i -> {
+            EntitySpec entity = entities.get(i);
+            return emitFile("services", "service", entity.name(), entity.sourceKey(), serviceOutputDir + "/" + entity.names().get("serviceName") + ".java",
+                    () -> Templates.render("service", settings, entity.names(), entity.serviceValues(),
+                            idValues(entity, config, graph, (List<String>) entity.serviceValues().get("fieldTypeImports"))));
+        });
+    }
+
+    private static void generateProjections(List<EntitySpec> entities, GeneratorConfig config) {
+        String _package = config.projectionPackage();
+        String projectionOutputDir = config.outputDir() + "/" + _package.replace(".", "/");
+        List<EntitySpec> owners = new ArrayList<>();
+        List<ProjectionSpec> projections = new ArrayList<>();
+        for (EntitySpec entity : entities) {
+            for (ProjectionSpec projection : entity.projections()) {
+                owners.add(entity);
+                projections.add(projection);
+            }
+        }
+        if (projections.isEmpty()) {
+            return;
+        }
+
+        forEachIndex("projections", projections.size(), i -> {
+            EntitySpec entity = owners.get(i);
+            ProjectionSpec projection = projections.get(i);
+            return emitFile("projections", "projection", projection.name(), projection.sourceKey(entity), projectionOutputDir + "/" + projection.name() + ".java", () -> {
+                Set<String> imports = new TreeSet<>();
+                List<String> components = new ArrayList<>(projection.fields().size());
+                for (FieldSpec field : projection.fields()) {
+                    String typeImport = typeImport(field.type(), config);
+                    if (typeImport != null && !typeImport.equals(_package + "." + field.type())) {
+                        imports.add(typeImport);
+                    }
+                    components.add(field.type() + " " + field.name());
+                }
+                return Templates.render("projection", templateValues(
+                        "package", _package,
+                        "imports", new ArrayList<>(imports),
+                        "importsUsed", !imports.isEmpty(),
+                        "name", projection.name(),
+                        "entityName", entity.name(),
+                        "repositoryName", entity.names().get("repositoryName"),
+                        "components", String.join(", ", components)));
+            });
+        });
+    }
+
+    // Import of a field type outside java.lang: a JDK type, or an enum or an embeddable of the shared package.
+    private static String typeImport(String type, GeneratorConfig config) {
+        if (JDK_TYPE_IMPORTS.containsKey(type)) {
+            return JDK_TYPE_IMPORTS.get(type);
+        } else if (!JAVA_LANG_TYPES.contains(type) && !config.sharedPackage().isEmpty()) {
+            return config.sharedPackage() + "." + type;
+        }
+        return null;
+    }
+
+    private static void generateControllers(List<EntitySpec> entities, GeneratorConfig config, EntityGraph graph) {
+        String _package = config.controllerPackage();
+        String controllerOutputDir = config.outputDir() + "/" + _package.replace(".", "/");
+
+        Map<String, Object> settings = artifactSettings(config);
+        forEachIndex("controllers", entities.size(), i -> {
+            EntitySpec entity = entities.get(i);
+            return emitFile("controllers", "controller", entity.name(), entity.sourceKey(), controllerOutputDir + "/" + entity.names().get("controllerName") + ".java",
+                    () -> Templates.render("controller", settings, entity.names(), entity.controllerValues(),
+                            config.streamingExport() ? exportValues(entity, config, graph) : Map.of(), idValues(entity, config, graph, List.of())));
+        });
+    }
+
+    private static boolean generateConfigurationFiles(GeneratorConfig config, List<Map<String, Object>> cacheRegions, List<Map<String, Object>> schemaIndexes) {
+        String outputDir = config.outputDir();
+        String configDir = outputDir + "/src/main/resources";
+        String configJavaDir = outputDir + "/src/main/java/com/example/config";
+        long start = System.nanoTime();
+        int queryCacheTtlSeconds = Integer.MAX_VALUE;
+        for (Map<String, Object> region : cacheRegions) {
+            queryCacheTtlSeconds = Math.min(queryCacheTtlSeconds, (Integer) region.get("ttlSeconds"));
+        }
+        Map<Object, Map<String, Object>> uniqueIndexes = new LinkedHashMap<>();
+        for (Map<String, Object> index : schemaIndexes) {
+            uniqueIndexes.putIfAbsent(index.get("name"), index);
+        }
+        String migrationDir = configDir + "/db/migration";
+        IndexMigration indexMigration;
+        try {
+            indexMigration = indexMigration(config, migrationDir, uniqueIndexes.values());
+        } catch (IOException e) {
+            String error = "Error reading the migrations of " + migrationDir + ": " + e.getMessage();
+            System.out.println(error);
+            metrics.recordFailure("config", error);
+            return false;
+        }
+        List<String> mysqlUrlParameters = new ArrayList<>();
+        if (config.highThroughputPersistence()) {
+            mysqlUrlParameters.add("rewriteBatchedStatements=true");
+        }
+        if (config.streamingExport()) {
+            mysqlUrlParameters.add("useCursorFetch=true");
+        }
+        Map<String, Object> settings = templateValues(
+                "highThroughputPersistence", config.highThroughputPersistence(),
+                "jdbcBatchSize", config.jdbcBatchSize(),
+                "secondLevelCache", !cacheRegions.isEmpty(),
+                "cacheRegions", cacheRegions,
+                "queryCacheTtlSeconds", queryCacheTtlSeconds,
+                "virtualThreads", !config.executionModel().equals("blocking"),
+                "connectionPoolSize", config.connectionPoolSize(),
+                "schemaMigrationVersion", indexMigration.version(),
+                "indexMigrations", !indexMigration.indexes().isEmpty() || !indexMigration.existingVersions().isEmpty(),
+                "readReplicaRouting", config.readReplicaRouting(),
+                "primaryPoolSize", config.primaryPoolSize(),
+                "replicaPoolSize", config.replicaPoolSize(),
+                "streamingExport", config.streamingExport(),
+                "hibernateModule", config.persistencePackage().startsWith("jakarta") ? "Hibernate6Module" : "Hibernate5Module",
+                "hibernateModuleVersion", config.persistencePackage().startsWith("jakarta") ? "hibernate6" : "hibernate5",
+                "mysqlUrlParameters", mysqlUrlParameters.isEmpty() ? "" : "?" + String.join("&", mysqlUrlParameters),
+                "schemaIndexes", indexMigration.indexes());
+        boolean asyncConfiguration = config.executionModel().equals("async");
+        if (manifest != null) {
+            manifest.registerConfigurationFile(APPLICATION_SETTINGS_SOURCE_KEY,
+                    List.of(cacheRegions, indexMigration.version(), indexMigration.indexes(), indexMigration.existingVersions()));
+        }
+        if (manifest != null && !cacheRegions.isEmpty()) {
+            manifest.registerConfigurationFile(CACHE_REGIONS_SOURCE_KEY, cacheRegions);
+        }
+        if (manifest != null && asyncConfiguration) {
+            manifest.registerConfigurationFile(ASYNC_CONFIGURATION_SOURCE_KEY, config.executionModel());
+        }
+        if (manifest != null && config.readReplicaRouting()) {
+            manifest.registerConfigurationFile(READ_REPLICA_SOURCE_KEY, config.readReplicaRouting());
+        }
+        if (manifest != null && config.jpaUsed()) {
+            manifest.registerConfigurationFile(JACKSON_CONFIGURATION_SOURCE_KEY, config.persistencePackage());
+        }
+        String schemaIndexesSourceKey = SCHEMA_INDEXES_SOURCE_KEY + "/V" + indexMigration.version();
+        if (manifest != null) {
+            for (int version : indexMigration.existingVersions()) {
+                manifest.registerConfigurationFile(SCHEMA_INDEXES_SOURCE_KEY + "/V" + version, version);
+            }
+            if (!indexMigration.indexes().isEmpty()) {
+                manifest.registerConfigurationFile(schemaIndexesSourceKey, indexMigration.indexes());
+            }
+        }
+
+        List<String[]> configurationFiles = new ArrayList<>(List.of(
+                new String[]{configDir, "application-dev.properties", CONFIGURATION_SOURCE_KEY},
+                new String[]{configDir, "application-prod.properties", APPLICATION_SETTINGS_SOURCE_KEY},
+                new String[]{configDir, "logback-spring.xml", CONFIGURATION_SOURCE_KEY},
+                new String[]{configJavaDir, "SwaggerConfig.java", CONFIGURATION_SOURCE_KEY},
+                new String[]{configJavaDir, "SecurityConfig.java", CONFIGURATION_SOURCE_KEY},
+                new String[]{configDir, "application.yml", APPLICATION_SETTINGS_SOURCE_KEY},
+                new String[]{configDir, "application.properties", APPLICATION_SETTINGS_SOURCE_KEY}));
+        if (!cacheRegions.isEmpty()) {
+            configurationFiles.add(new String[]{configDir, "caffeine.conf", CACHE_REGIONS_SOURCE_KEY});
+        }
+        if (asyncConfiguration) {
+            configurationFiles.add(new String[]{configJavaDir, "AsyncConfig.java", ASYNC_CONFIGURATION_SOURCE_KEY});
+        }
+        if (config.readReplicaRouting()) {
+            configurationFiles.add(new String[]{configJavaDir, "DataSourceRoutingConfig.java", READ_REPLICA_SOURCE_KEY});
+        }
+        if (config.jpaUsed()) {
+            configurationFiles.add(new String[]{configJavaDir, "JacksonConfig.java", JACKSON_CONFIGURATION_SOURCE_KEY});
+        }
+        if (!indexMigration.indexes().isEmpty()) {
+            configurationFiles.add(new String[]{migrationDir, "V" + indexMigration.version() + "__create_indexes.sql", schemaIndexesSourceKey, "create_indexes.sql"});
+        }
+        try {
+            for (String[] configurationFile : configurationFiles) {
+                String template = configurationFile.length > 3 ? configurationFile[3] : configurationFile[1];
+                String error = emitFile("config", "configuration", configurationFile[1], configurationFile[2], configurationFile[0] + "/" + configurationFile[1],
+                        () -> Templates.render(template, config.variables(), settings));
+                if (error != null) {
+                    System.out.println(error);
+                    metrics.recordFailure("config", error);
+                    return false;
+                }
+            }
+            if (config.migrationVerification()) {
+                String error = verifyIndexMigrations(config, migrationDir, indexMigration, Templates.render("create_indexes.sql", config.variables(), settings));
+                if (error != null) {
+                    System.out.println(error);
+                    metrics.recordFailure("config", error);
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            metrics.recordWallTime("config", System.nanoTime() - start);
+        }
+    }
+
+    // Runs the index migrations in the order of their versions, the one of this run last, on an in-memory H2
+    // database. Its tables are stand-ins that hold only the indexed columns, so this catches the statements
+    // that H2 rejects and the index names used twice, not a column missing from the real table.
+    private static String verifyIndexMigrations(GeneratorConfig config, String migrationDir, IndexMigration indexMigration, String newMigration) {
+        long start = System.nanoTime();
+        Map<String, String> migrations = new LinkedHashMap<>();
+        try {
+            Path directory = Paths.get(migrationDir);
+            if (!indexMigration.existingVersions().isEmpty()) {
+                List<Path> files;
+                try (Stream<Path> paths = Files.list(directory)) {
+                    files = paths.sorted().toList();
+                }
+                Map<Integer, Path> existing = new TreeMap<>();
+                for (Path file : files) {
+                    Matcher migration = VERSIONED_MIGRATION.matcher(file.getFileName().toString());
+                    if (migration.matches() && migration.group(2).equals("create_indexes")
+                            && indexMigration.existingVersions().contains(Integer.parseInt(migration.group(1)))) {
+                        existing.put(Integer.parseInt(migration.group(1)), file);
+                    }
+                }
+                for (Path file : existing.values()) {
+                    migrations.put(file.getFileName().toString(), Files.readString(file));
+                }
+            }
+        } catch (IOException e) {
+            return "Error reading the migrations of " + migrationDir + ": " + e.getMessage();
+        }
+        if (!indexMigration.indexes().isEmpty()) {
+            migrations.put("V" + indexMigration.version() + "__create_indexes.sql", newMigration);
+        }
+        if (migrations.isEmpty()) {
+            return null;
+        }
+
+        List<URL> classpath = new ArrayList<>();
+        for (String entry : config.migrationVerificationClasspath().split(File.pathSeparator)) {
+            if (!entry.isBlank()) {
+                try {
+                    classpath.add(new File(entry).toURI().toURL());
+                } catch (MalformedURLException e) {
+                    return "Error in migration_verification_classpath: " + e.getMessage();
+                }
+            }
+        }
+        int statementCount = 0;
+        try (URLClassLoader loader = new URLClassLoader(classpath.toArray(new URL[0]), JavaClassGenerator.class.getClassLoader())) {
+            Driver driver;
+            try {
+                driver = (Driver) Class.forName("org.h2.Driver", true, loader).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                return "Error loading the H2 database from migration_verification_classpath: " + e;
+            }
+            try (Connection connection = driver.connect("jdbc:h2:mem:", new Properties());
+                 Statement statement = connection.createStatement()) {
+                Map<String, Set<String>> tables = new LinkedHashMap<>();
+                for (String migration : migrations.values()) {
+                    for (String line : migration.split("\n")) {
+                        Matcher index = INDEX_STATEMENT.matcher(line.trim());
+                        if (index.matches()) {
+                            Set<String> columns = tables.computeIfAbsent(index.group(2), key -> new LinkedHashSet<>());
+                            for (String column : index.group(3).split(",")) {
+                                columns.add(column.trim());
+                            }
+                        }
+                    }
+                }
+                for (Map.Entry<String, Set<String>> table : tables.entrySet()) {
+                    List<String> columns = new ArrayList<>();
+                    for (String column : table.getValue()) {
+                        columns.add(column + " VARCHAR(255)");
+                    }
+                    statement.execute("CREATE TABLE " + table.getKey() + " (" + String.join(", ", columns) + ")");
+                }
+                for (Map.Entry<String, String> migration : migrations.entrySet()) {
+                    StringBuilder sql = new StringBuilder();
+                    String[] lines = migration.getValue().split("\n");
+                    for (int i = 0; i < lines.length; i++) {
+                        String line = lines[i].trim();
+                        if (!line.isEmpty() && !line.startsWith("--")) {
+                            sql.append(sql.length() > 0 ? " " : "").append(line);
+                        }
+                        // A statement ends with a semicolon, the last one of the file may lack it.
+                        if ((line.endsWith(";") || i == lines.length - 1) && sql.length() > 0) {
+                            try {
+                                statement.execute(sql.toString().replaceAll(";$", ""));
+                            } catch (SQLException e) {
+                                return "Error running the migration " + migration.getKey() + " (line " + (i + 1) + ") on H2: "
+                                        + e.getMessage().strip().replaceAll("\\s*\\n\\s*", " ");
+                            }
+                            statementCount++;
+                            sql.setLength(0);
+                        }
+                    }
+                }
+            }
+        } catch (IOException | SQLException e) {
+            return "Error while verifying the migrations on H2: " + e.getMessage();
+        }
+        migrationSummary = String.format(Locale.ROOT, "\t🧪 %d index migrations (%d statements) run on H2 in %.1f ms: no errors.",
+                migrations.size(), statementCount, (System.nanoTime() - start) / 1_000_000.0);
+        return null;
+    }
+
+    // The index migrations of a previous run may have been applied, so they are never rewritten: the indexes
+    // they lack go into a migration of the next version. Changed or removed indexes are left to the user.
+    private static IndexMigration indexMigration(GeneratorConfig config, String migrationDir, Collection<Map<String, Object>> indexes) throws IOException {
+        Map<String, String> existingIndexes = new HashMap<>();
+        List<Integer> existingVersions = new ArrayList<>();
+        int lastVersion = 0;
+        Path directory = Paths.get(migrationDir);
+        if (config.outputSink().equals("directory") && Files.isDirectory(directory)) {
+            List<Path> files;
+            try (Stream<Path> paths = Files.list(directory)) {
+                files = paths.sorted().toList();
+            }
+            for (Path file : files) {
+                Matcher migration = VERSIONED_MIGRATION.matcher(file.getFileName().toString());
+                if (!migration.matches()) {
+                    continue;
+                }
+                int version = Integer.parseInt(migration.group(1));
+                lastVersion = Math.max(lastVersion, version);
+                if (migration.group(2).equals("create_indexes")) {
+                    existingVersions.add(version);
+                    for (String line : Files.readAllLines(file)) {
+                        Matcher statement = INDEX_STATEMENT.matcher(line.trim());
+                        if (statement.matches()) {
+                            existingIndexes.put(statement.group(1), line.trim());
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Map<String, Object>> newIndexes = new ArrayList<>();
+        for (Map<String, Object> index : indexes) {
+            String existing = existingIndexes.remove(index.get("name"));
+            if (existing == null) {
+                newIndexes.add(index);
+            } else if (!existing.equals(index.get("sql"))) {
+                System.out.println("Warning: The index '" + index.get("name") + "' differs from the one of an existing migration, it is left to a migration of your own.");
+            }
+        }
+        for (String name : existingIndexes.keySet()) {
+            System.out.println("Warning: The index '" + name + "' of an existing migration is no longer declared, it is left to a migration of your own.");
+        }
+        return new IndexMigration(Math.max(config.schemaMigrationVersion(), lastVersion + 1), newIndexes, existingVersions);
+    }
+
+    // The index migration to write, with no indexes when the existing migrations hold them all.
+    record IndexMigration(int version, List<Map<String, Object>> indexes, List<Integer> existingVersions) {
+    }
+
+    // The indexes of an entity without a table of its own (a mapped superclass, or a subclass in the table of
+    // its parent entity) are not generated; the indexes of its join tables are.
+    private static List<Map<String, Object>> schemaIndexes(List<EntitySpec> entities, EntityGraph graph) {
+        List<Map<String, Object>> indexes = new ArrayList<>();
+        for (EntitySpec entity : entities) {
+            boolean ownTable = hasOwnTable(entity, graph);
+            boolean skipped = false;
+            for (IndexSpec index : entity.indexes()) {
+                if (index.table().equals(entity.name() + "s") && !ownTable) {
+                    skipped = true;
+                } else {
+                    indexes.add(templateValues("name", index.name(), "sql", index.sql()));
+                }
+            }
+            if (skipped) {
+                System.out.println("Warning: The indexes of the entity '" + entity.name() + "' are not generated, it has no table of its own.");
+            }
+        }
+        return indexes;
+    }
+
+    private static List<Map<String, Object>> cacheRegions(List<EntitySpec> entities) {
+        List<Map<String, Object>> regions = new ArrayList<>();
+        for (EntitySpec entity : entities) {
+            if (entity.cache() != null) {
+                regions.add(templateValues(
+                        "region", entity.name(),
+                        "maxEntries", entity.cache().maxEntries(),
+                        "ttlSeconds", entity.cache().ttlSeconds()));
+            }
+        }
+        return regions;
+    }
+
+    // Renders and writes one file, unless the manifest knows that it is up to date, and records the
+    // time spent and the bytes written in the metrics of its artifact kind. Returns the error, if any.
+    private static String emitFile(String kind, String label, String name, String sourceKey, String filePath, Supplier<String> renderer) {
+        if (manifest != null && manifest.isUpToDate(sourceKey, filePath)) {
+            if (verifier != null) {
+                verifier.addExisting(kind, name, filePath);
+            }
+            return null;
+        }
+        ArtifactGeneratedEvent event = metrics.jfrEvents ? new ArtifactGeneratedEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+
+        long start = System.nanoTime();
+        String content = renderer.get();
+        long rendered = System.nanoTime();
+        int bytes;
+        try {
+            bytes = writeGeneratedFile(sourceKey, filePath, content);
+        } catch (IOException e) {
+            return "Error writing " + label + " file: " + e.getMessage();
+        }
+        metrics.recordFile(kind, name, rendered - start, System.nanoTime() - rendered, bytes);
+        if (verifier != null) {
+            verifier.add(kind, name, filePath, content);
+        }
+
+        if (event != null) {
+            event.kind = kind;
+            event.name = name;
+            event.bytes = bytes;
+            event.commit();
+        }
+        return null;
+    }
+
+    // Returns the number of bytes written, 0 when the manifest finds the file unchanged.
+    private static int writeGeneratedFile(String sourceKey, String filePath, String content) throws IOException {
+        if (manifest != null) {
+            return manifest.write(sourceKey, filePath, content);
+        }
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        outputSink.write(filePath, bytes);
+        return bytes.length;
+    }
+
+    record GeneratorConfig(Map<String, Object> variables, String outputDir, String modelPackage, String modelPackagePath,
+                           boolean jpaUsed, String persistencePackage, boolean serializableModels,
+                           boolean generateClassesFollowingPackages, String entitySuffix, String idGeneratedValue,
+                           boolean addConstructors, boolean addGettersSetters, boolean addStandardMethods,
+                           boolean springDataUsed, String sharedPackage, String repositoryPackage, String servicePackage,
+                           String controllerPackage, boolean parallelGeneration, int parallelWorkerCount,
+                           boolean incrementalGeneration, boolean streamingJsonIngestion, int streamingBatchSize,
+                           String templatesDirectory, String outputSink, String outputArchive, boolean watchMode,
+                           String metricsReport, boolean jfrEvents, boolean compileVerification,
+                           String compileVerificationClasspath, boolean migrationVerification,
+                           String migrationVerificationClasspath, boolean highThroughputPersistence,
+                           int idSequenceAllocationSize, int jdbcBatchSize, int maxPageSize, int defaultPageSize,
+                           boolean unboundedFindAll, String relationshipFetchType, int collectionBatchSize,
+                           String projectionPackage, String executionModel, int connectionPoolSize,
+                           boolean identityEquality, int schemaMigrationVersion, boolean bulkOperations,
+                           boolean readReplicaRouting, int primaryPoolSize, int replicaPoolSize,
+                           boolean streamingExport, int exportFetchSize) {
+    }
+
+    // The Lombok flags tell which standard members Lombok already generates for the class. Each artifact has its
+    // own template values, rendered over the names and the settings of artifactSettings.
+    record EntitySpec(String name, String className, boolean parent, String inheritanceStrategy, String parentName,
+                      String discriminatorValue, List<String> classLombokAnnotations, List<String> interfacesImplemented,
+                      List<FieldSpec> fields, boolean lombokUsed, boolean lombokConstructors, boolean lombokAccessors,
+                      boolean lombokStandardMethods, CacheSpec cache, List<ProjectionSpec> projections, List<IndexSpec> indexes,
+                      Map<String, Object> names, Map<String, Object> modelValues, Map<String, Object> repositoryValues,
+                      Map<String, Object> serviceValues, Map<String, Object> controllerValues) {
+        String sourceKey() {
+            return "entities/" + name;
+        }
+    }
+
+    record ProjectionSpec(String name, List<FieldSpec> fields, boolean endpoint) {
+        // Each projection has its own source key, so that incremental generation deletes the record of a removed projection.
+        String sourceKey(EntitySpec entity) {
+            return entity.sourceKey() + "/projections/" + name;
+        }
+    }
+
+    // An index of a table. The fields are those the derived finder of the index queries on; the indexes
+    // of join columns and join tables have none.
+    record IndexSpec(String name, String table, List<String> columns, boolean unique, List<FieldSpec> fields) {
+        String annotation() {
+            return "@Index(name = \"" + name + "\", columnList = \"" + String.join(", ", columns) + "\"" + (unique ? ", unique = true" : "") + ")";
+        }
+
+        String sql() {
+            List<String> physicalColumns = new ArrayList<>(columns.size());
+            for (String column : columns) {
+                physicalColumns.add(physicalName(column));
+            }
+            return "CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + name + " ON " + physicalName(table) + " (" + String.join(", ", physicalColumns) + ");";
+        }
+    }
+
+    // Second-level cache of an entity: its concurrency strategy, and the size and time to live of its region.
+    record CacheSpec(String strategy, int maxEntries, int ttlSeconds) {
+    }
+
+    record FieldSpec(String name, String type, List<String> annotations) {
+    }
+
+    record InterfaceSpec(String name, List<String> methods) {
+        String sourceKey() {
+            return "interface_classes/" + name;
+        }
+    }
+
+    record EmbeddableSpec(String name, List<FieldSpec> fields) {
+        String sourceKey() {
+            return "embeddable_classes/" + name;
+        }
+    }
+
+    record EnumSpec(String name, List<String> values) {
+        String sourceKey() {
+            return "enum_classes/" + name;
+        }
+    }
+
+    record EntityNode(String name, String parentName, Map<String, String> relationshipTargets, List<String> interfaces) {
+        static EntityNode of(EntitySpec entity) {
+            Map<String, String> relationshipTargets = new LinkedHashMap<>();
+            for (FieldSpec field : entity.fields()) {
+                for (String annotation : field.annotations()) {
+                    if (RELATIONSHIP_ANNOTATIONS.contains(annotation)) {
+                        String type = field.type();
+                        relationshipTargets.put(field.name(), type.contains("<") ? type.split("<")[1].replace(">", "") : type);
+                    }
+                }
+            }
+            return new EntityNode(entity.name(), entity.parentName(), relationshipTargets,
+                    entity.interfacesImplemented() != null ? entity.interfacesImplemented() : Collections.emptyList());
+        }
+    }
+
+    // Name-indexed view of all the entities of the spec, built once per run, so that missing parents, inheritance
+    // cycles and dangling references are reported before anything is rendered.
+    static final class EntityGraph {
+        private final Map<String, EntityNode> nodesByName = new LinkedHashMap<>();
+        private final Map<String, Integer> definitionCounts = new HashMap<>();
+        private final Map<String, Integer> definitionsSeen = new HashMap<>();
+        private final Set<String> parentNames = new HashSet<>();
+        private final Map<String, EntitySpec> parentsByName = new HashMap<>();
+        private final Set<String> brokenEntities = new HashSet<>();
+
+        static EntityGraph build(List<EntityNode> nodes, Set<String> interfaceNames) {
+            EntityGraph graph = new EntityGraph();
+            for (EntityNode node : nodes) {
+                graph.definitionCounts.merge(node.name(), 1, Integer::sum);
+                graph.nodesByName.put(node.name(), node);
+            }
+            for (Map.Entry<String, Integer> definitionCount : graph.definitionCounts.entrySet()) {
+                if (definitionCount.getValue() > 1) {
+                    System.out.println("Warning: The entity '" + definitionCount.getKey() + "' is defined " + definitionCount.getValue() + " times, only its last definition is generated.");
+                }
+            }
+
+            for (EntityNode node : graph.nodesByName.values()) {
+                if (node.parentName() != null) {
+                    graph.parentNames.add(node.parentName());
+                }
+                for (Map.Entry<String, String> relationship : node.relationshipTargets().entrySet()) {
+                    if (!graph.nodesByName.containsKey(relationship.getValue())) {
+                        System.out.println("Warning: The relationship '" + relationship.getKey() + "' of the entity '" + node.name() + "' targets '" + relationship.getValue() + "', which is not an entity.");
+                    }
+                }
+                if (interfaceNames != null) {
+                    for (String interfaceName : node.interfaces()) {
+                        if (!interfaceNames.contains(interfaceName)) {
+                            System.out.println("Warning: The interface '" + interfaceName + "' implemented by the entity '" + node.name() + "' is not declared in interface_classes.");
+                        }
+                    }
+                }
+            }
+
+            Map<String, Boolean> resolved = new HashMap<>();
+            Set<String> reported = new HashSet<>();
+            for (EntityNode node : graph.nodesByName.values()) {
+                List<String> chain = new ArrayList<>();
+                EntityNode current = node;
+                Boolean broken = null;
+                while (broken == null) {
+                    if (resolved.containsKey(current.name())) {
+                        broken = resolved.get(current.name());
+                    } else if (chain.contains(current.name())) {
+                        List<String> cycle = new ArrayList<>(chain.subList(chain.indexOf(current.name()), chain.size()));
+                        cycle.add(current.name());
+                        String error = "Error while generating the class " + current.name() + ": Inheritance cycle " + String.join(" -> ", cycle);
+                        System.out.println(error);
+                        metrics.recordFailure("models", error);
+                        reported.addAll(cycle);
+                        broken = true;
+                    } else {
+                        chain.add(current.name());
+                        if (current.parentName() == null) {
+                            broken = false;
+                        } else if (!graph.nodesByName.containsKey(current.parentName())) {
+                            String error = "Error while generating the class " + current.name() + ": Parent entity '" + current.parentName() + "' not found for entity '" + current.name() + "'";
+                            System.out.println(error);
+                            metrics.recordFailure("models", error);
+                            reported.add(current.name());
+                            broken = true;
+                        } else {
+                            current = graph.nodesByName.get(current.parentName());
+                        }
+                    }
+                }
+                for (String name : chain) {
+                    resolved.put(name, broken);
+                    if (broken) {
+                        graph.brokenEntities.add(name);
+                        if (reported.add(name)) {
+                            String error = "Error while generating the class " + name + ": Parent entity '" + graph.nodesByName.get(name).parentName() + "' cannot be generated";
+                            System.out.println(error);
+                            metrics.recordFailure("models", error);
+                        }
+                    }
+                }
+            }
+            return graph;
+        }
+
+        void addParent(EntitySpec entity) {
+            if (parentNames.contains(entity.name())) {
+                parentsByName.put(entity.name(), entity);
+            }
+        }
+
+        EntitySpec parentOf(EntitySpec entity) {
+            return parentsByName.get(entity.parentName());
+        }
+
+        // Drops the earlier definitions of an entity defined several times; called in document order.
+        List<EntitySpec> retainLastDefinitions(List<EntitySpec> entities) {
+            List<EntitySpec> retained = new ArrayList<>(entities.size());
+            for (EntitySpec entity : entities) {
+                int seen = definitionsSeen.merge(entity.name(), 1, Integer::sum);
+                if (seen >= definitionCounts.getOrDefault(entity.name(), 1)) {
+                    retained.add(entity);
+                }
+            }
+            return retained;
+        }
+
+        // Groups the entities that can be generated by inheritance tree, each parent before its children.
+        List<List<EntitySpec>> schedule(List<EntitySpec> entities) {
+            Map<String, List<EntitySpec>> children = new HashMap<>();
+            Set<String> names = new HashSet<>();
+            for (EntitySpec entity : entities) {
+                names.add(entity.name());
+            }
+            List<EntitySpec> roots = new ArrayList<>();
+            for (EntitySpec entity : entities) {
+                if (brokenEntities.contains(entity.name())) {
+                    continue;
+                }
+                if (entity.parentName() != null && names.contains(entity.parentName())) {
+                    children.computeIfAbsent(entity.parentName(), name -> new ArrayList<>()).add(entity);
+                } else {
+                    roots.add(entity);
+                }
+            }
+
+            List<List<EntitySpec>> subtrees = new ArrayList<>(roots.size());
+            for (EntitySpec root : roots) {
+                List<EntitySpec> subtree = new ArrayList<>();
+                subtree.add(root);
+                for (int i = 0; i < subtree.size(); i++) {
+                    subtree.addAll(children.getOrDefault(subtree.get(i).name(), Collections.emptyList()));
+                }
+                subtrees.add(subtree);
+            }
+            return subtrees;
+        }
+    }
+
+    private static final class StreamedSpec {
+        private final String filePath;
+        private final List<Map<String, Object>> parentEntities = new ArrayList<>();
+        private EntityGraph graph;
+
+        private StreamedSpec(String filePath) {
+            this.filePath = filePath;
+        }
+    }
+
+    private static final class GenerationSummary {
+        private final Map<String, Integer> sectionSizes = new HashMap<>();
+        private final List<Map<String, Object>> cacheRegions = new ArrayList<>();
+        private final List<Map<String, Object>> schemaIndexes = new ArrayList<>();
+        private volatile boolean configurationGenerated;
+    }
+
+    // Content-hash manifest stored in OUT_PUT_DIR: the hash of the input and of the content of each file, so
+    // that unchanged artifacts are neither rendered nor rewritten on the next run.
+    private static final class GenerationManifest {
+        private static final String FILE_NAME = ".generation-manifest.json";
+
+        private final String outputDir;
+        private final String configurationHash;
+        private final Map<String, Map<String, String>> previousFiles;
+        private final Map<String, Map<String, String>> currentFiles = new ConcurrentHashMap<>();
+        private final Map<String, String> inputHashes = new ConcurrentHashMap<>();
+        private final Set<String> sources = new HashSet<>();
+        private final AtomicInteger unchangedFiles = new AtomicInteger();
+        private final AtomicInteger removedFiles = new AtomicInteger();
+
+        private GenerationManifest(String outputDir, Map<String, Map<String, String>> previousFiles, String configurationHash) {
+            this.outputDir = outputDir;
+            this.previousFiles = previousFiles;
+            this.configurationHash = configurationHash;
+        }
+
+        static GenerationManifest load(GeneratorConfig config) throws IOException {
+            String outputDir = config.outputDir();
+            Map<String, Map<String, String>> previousFiles = new HashMap<>();
+            File manifestFile = new File(outputDir, FILE_NAME);
+            if (manifestFile.exists()) {
+                Map<String, Object> previous = objectMapper().readValue(manifestFile, Map.class);
+                previousFiles.putAll((Map<String, Map<String, String>>) previous.getOrDefault("files", Collections.emptyMap()));
+            }
+
+            String configurationHash = hash((GENERATOR_VERSION + '\0' + hash(objectMapper().writeValueAsBytes(config.variables()))
+                    + '\0' + Templates.fingerprint()).getBytes(StandardCharsets.UTF_8));
+            GenerationManifest manifest = new GenerationManifest(outputDir, previousFiles, configurationHash);
+            manifest.register(CONFIGURATION_SOURCE_KEY, manifest.configurationHash);
+            return manifest;
+        }
+
+        // The files of an entity also depend on all its ancestors: the model class on the inheritance strategy
+        // of its parent and on whether the entity has a table of its own, the repository, service and controller
+        // on the id inherited from any of them.
+        void registerEntities(List<Map<String, Object>> entities, List<Map<String, Object>> parentEntities) {
+            Map<Object, Map<String, Object>> parentsByName = new HashMap<>();
+            for (Map<String, Object> parentEntity : parentEntities) {
+                parentsByName.put(parentEntity.get("entity_name"), parentEntity);
+            }
+            for (Map<String, Object> entity : entities) {
+                StringBuilder inputHash = new StringBuilder(configurationHash).append(hashJson(entity));
+                Set<Object> ancestors = new HashSet<>();
+                Map<String, Object> parentEntity = parentsByName.get(entity.get("entity_parent_name"));
+                while (parentEntity != null && ancestors.add(parentEntity.get("entity_name"))) {
+                    inputHash.append(hashJson(parentEntity));
+                    parentEntity = parentsByName.get(parentEntity.get("entity_parent_name"));
+                }
+                register("entities/" + entity.get("entity_name"), inputHash.toString());
+                if (entity.get("projections") instanceof List<?> projections) {
+                    for (Object projection : projections) {
+                        if (projection instanceof Map<?, ?> values) {
+                            register("entities/" + entity.get("entity_name") + "/projections/" + values.get("projection_name"), inputHash.toString());
+                        }
+                    }
+                }
+            }
+        }
+
+        // An optional configuration file depends on the configuration and on its own input.
+        void registerConfigurationFile(String sourceKey, Object input) {
+            register(sourceKey, configurationHash + hashJson(input));
+        }
+
+        void registerItems(Map<String, Object> data, String section, String nameKey) {
+            if (data.containsKey(section)) {
+                for (Map<String, Object> item : (List<Map<String, Object>>) data.get(section)) {
+                    register(section + "/" + item.get(nameKey), configurationHash + hashJson(item));
+                }
+            }
+        }
+
+        // Forgets the elements of a streamed batch once it is generated; only their source keys are kept.
+        void release(String section, String nameKey, List<Map<String, Object>> items) {
+            for (Map<String, Object> item : items) {
+                inputHashes.remove(section + "/" + item.get(nameKey));
+            }
+        }
+
+        private void register(String sourceKey, String inputHash) {
+            inputHashes.put(sourceKey, hash(inputHash.getBytes(StandardCharsets.UTF_8)));
+            sources.add(sourceKey);
+        }
+
+        boolean isUpToDate(String sourceKey, String filePath) {
+            String relativePath = relativePath(filePath);
+            Map<String, String> previous = previousFiles.get(relativePath);
+            if (previous == null || !previous.get("input").equals(inputHashes.get(sourceKey)) || !outputSink.exists(filePath)) {
+                return false;
+            }
+            currentFiles.put(relativePath, previous);
+            unchangedFiles.incrementAndGet();
+            return true;
+        }
+
+        int write(String sourceKey, String filePath, String content) throws IOException {
+            String relativePath = relativePath(filePath);
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            String contentHash = hash(bytes);
+            Map<String, String> previous = previousFiles.get(relativePath);
+            int written = 0;
+            if (previous != null && previous.get("content").equals(contentHash) && outputSink.exists(filePath)) {
+                unchangedFiles.incrementAndGet();
+            } else {
+                outputSink.write(filePath, bytes);
+                written = bytes.length;
+            }
+            Map<String, String> entry = new TreeMap<>();
+            entry.put("source", sourceKey);
+            entry.put("input", inputHashes.get(sourceKey));
+            entry.put("content", contentHash);
+            currentFiles.put(relativePath, entry);
+            return written;
+        }
+
+        // Files of sources that are gone from the spec are deleted; files that were not produced this
+        // time for another reason (a generation error) are kept and stay in the manifest.
+        void save() throws IOException {
+            for (Map.Entry<String, Map<String, String>> previous : previousFiles.entrySet()) {
+                if (currentFiles.containsKey(previous.getKey())) {
+                    continue;
+                }
+                if (sources.contains(previous.getValue().get("source"))) {
+                    currentFiles.put(previous.getKey(), previous.getValue());
+                } else if (outputSink.delete(Paths.get(outputDir, previous.getKey()).toString())) {
+                    removedFiles.incrementAndGet();
+                }
+            }
+            Map<String, Object> manifestData = new LinkedHashMap<>();
+            manifestData.put("files", new TreeMap<>(currentFiles));
+            new File(outputDir).mkdirs();
+            objectMapper().writerWithDefaultPrettyPrinter().writeValue(new File(outputDir, FILE_NAME), manifestData);
+        }
+
+        private String relativePath(String filePath) {
+            return Paths.get(outputDir).relativize(Paths.get(filePath)).normalize().toString().replace(File.separatorChar, '/');
+        }
+
+        private static String hashJson(Object value) {
+            try {
+                return hash(objectMapper().writeValueAsBytes(value));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
 
-    private static Map<String, Object> verifyData(String filePath) {
-        try {
-            String content = new String(Files.readAllBytes(Paths.get(filePath)));
-            Map<String, Object> data = objectMapper.readValue(content, Map.class);
-            if (data.containsKey("entities") && data.containsKey("configuration_variables")) {
-                System.out.println("Data loaded from the file " + filePath + ".");
-                return data;
-            } else {
-                System.out.println("Error: The data loaded from the file " + filePath + " is not valid.");
+        static String hash(byte[] bytes) {
+            try {
+                return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
             }
-        } catch (IOException e) {
-            System.out.println("Error: The file " + filePath + " does not exist or contains invalid JSON data.");
         }
-        return null;
     }
 
-    private static List<String> generateClasses(List<Map<String, Object>> entities, Map<String, Object> configurationVariables) {
-        List<String> generatedClasses = new ArrayList<>();
-        String outputDir = (String) configurationVariables.getOrDefault("OUT_PUT_DIR", "./generated_classes");
-        new File(outputDir).mkdirs();
+    // Timings of the phases and, for each artifact kind, the time spent, the files and bytes written and the
+    // failures. Workers record into adders, so that the metrics cost no locking on the hot path.
+    private static final class GenerationMetrics {
+        static final List<String> PHASES = List.of("load", "validate", "verify");
+        static final List<String> KINDS = List.of("models", "interfaces", "embeddables", "enums", "repositories", "services", "controllers", "projections", "config");
+        private static final Set<String> ENTITY_KINDS = Set.of("models", "repositories", "services", "controllers");
+        private static final int SLOWEST_ENTITIES = 10;
+
+        private final long start = System.nanoTime();
+        private final Map<String, LongAdder> phaseNanos = new ConcurrentHashMap<>();
+        private final Map<String, ArtifactMetrics> artifacts = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> entityNanos = new ConcurrentHashMap<>();
+        private final Queue<Map<String, String>> failures = new ConcurrentLinkedQueue<>();
+        private volatile boolean jfrEvents;
+        private long wallNanos;
+        private String specFile;
+
+        private static final class ArtifactMetrics {
+            private final LongAdder files = new LongAdder();
+            private final LongAdder bytes = new LongAdder();
+            private final LongAdder renderNanos = new LongAdder();
+            private final LongAdder writeNanos = new LongAdder();
+            private final LongAdder wallNanos = new LongAdder();
+            private final LongAdder failures = new LongAdder();
+        }
 
-        for (Map<String, Object> entity : entities) {
-            try {
-                validateEntity(entity);
-                String classCode = generateClass(entity, configurationVariables, entities);
-                generatedClasses.add(classCode);
+        final class Phase {
+            private final String name;
+            private final long phaseStart = System.nanoTime();
+            private final PhaseEvent event;
+
+            private Phase(String name) {
+                this.name = name;
+                this.event = jfrEvents ? new PhaseEvent() : null;
+                if (event != null) {
+                    event.begin();
+                }
+            }
 
-                if (configurationVariables.containsKey("generate_classes_following_packages")) {
-                    String packageName = (String) configurationVariables.getOrDefault("model_classes_package", "");
-                    String packagePath = packageName.replace(".", "/");
-                    String classOutputDir = outputDir + "/" + packagePath;
-                    new File(classOutputDir).mkdirs();
-                    String filePath = classOutputDir + "/" + entity.get("entity_name") + configurationVariables.get("entity_suffix") + ".java";
-                    Files.write(Paths.get(filePath), classCode.getBytes());
+            void end() {
+                phaseNanos.computeIfAbsent(name, key -> new LongAdder()).add(System.nanoTime() - phaseStart);
+                if (event != null) {
+                    event.phase = name;
+                    event.commit();
                 }
-            } catch (Exception e) {
-                System.out.println("Error while generating the class " + entity.getOrDefault("entity_name", "Unknown") + ": " + e.getMessage());
             }
         }
 
-        return generatedClasses;
-    }
+        Phase startPhase(String name) {
+            return new Phase(name);
+        }
 
-    private static void validateEntity(Map<String, Object> entity) {
-        String[] requiredFields = {"entity_name", "fields"};
-        for (String field : requiredFields) {
-            if (!entity.containsKey(field)) {
-                throw new IllegalArgumentException("Missing required field: " + field);
+        void recordFile(String kind, String name, long renderNanos, long writeNanos, int bytes) {
+            ArtifactMetrics artifact = artifact(kind);
+            artifact.files.increment();
+            artifact.bytes.add(bytes);
+            artifact.renderNanos.add(renderNanos);
+            artifact.writeNanos.add(writeNanos);
+            if (ENTITY_KINDS.contains(kind)) {
+                entityNanos.computeIfAbsent(name, key -> new LongAdder()).add(renderNanos + writeNanos);
             }
         }
-    }
 
-    private static String generateClass(Map<String, Object> entity, Map<String, Object> configurationVariables, List<Map<String, Object>> entities) {
-        StringBuilder classCode = new StringBuilder();
+        void recordWallTime(String kind, long nanos) {
+            artifact(kind).wallNanos.add(nanos);
+        }
 
-        if (configurationVariables.containsKey("model_classes_package")) {
-            classCode.append("package ").append(configurationVariables.get("model_classes_package")).append(";\n\n");
+        void recordFailure(String kind, String message) {
+            if (KINDS.contains(kind)) {
+                artifact(kind).failures.increment();
+            }
+            Map<String, String> failure = new LinkedHashMap<>();
+            failure.put("kind", kind);
+            failure.put("message", message);
+            failures.add(failure);
         }
 
-        if ((Boolean) configurationVariables.get("jpa_used")) {
-            if ((Boolean) configurationVariables.getOrDefault("jakarta_persistence_api", false)) {
-                classCode.append("import jakarta.persistence.*;\n\n");
-            } else {
-                classCode.append("import javax.persistence.*;\n\n");
+        long fileCount() {
+            long files = 0;
+            for (ArtifactMetrics artifact : artifacts.values()) {
+                files += artifact.files.sum();
             }
+            return files;
         }
 
-        if ((Boolean) configurationVariables.get("jpa_used") || (!(Boolean) configurationVariables.get("jpa_used") && (Boolean) configurationVariables.get("pojo_model_beanified"))) {
-            classCode.append("import java.io.Serializable;\n\n");
+        int failureCount() {
+            return failures.size();
         }
 
-        Set<String> lombokAnnotations = new HashSet<>(Arrays.asList("@NoArgsConstructor", "@RequiredArgsConstructor", "@AllArgsConstructor", "@Getter", "@Setter",
-                "@ToString", "@EqualsAndHashCode", "@Data", "@Value", "@Builder", "@With", "@NonNull", "@SneakyThrows", "@Synchronized"));
-        Set<String> presentAnnotations = new HashSet<>();
+        long phaseNanos(String phase) {
+            LongAdder nanos = phaseNanos.get(phase);
+            return nanos != null ? nanos.sum() : 0;
+        }
+
+        private ArtifactMetrics artifact(String kind) {
+            return artifacts.computeIfAbsent(kind, key -> new ArtifactMetrics());
+        }
 
-        if (entity.containsKey("entity_supplementary_annotations")) {
-            for (String annotation : (List<String>) entity.get("entity_supplementary_annotations")) {
-                if (lombokAnnotations.contains(annotation)) {
-                    presentAnnotations.add(annotation);
+        void finish(String specFile) {
+            this.specFile = specFile;
+            this.wallNanos = System.nanoTime() - start;
+            if (jfrEvents) {
+                GenerationRunEvent event = new GenerationRunEvent();
+                event.specFile = specFile;
+                event.wallTimeMillis = millis(wallNanos);
+                event.files = fileCount();
+                for (ArtifactMetrics artifact : artifacts.values()) {
+                    event.bytesWritten += artifact.bytes.sum();
                 }
+                event.failures = failures.size();
+                event.commit();
             }
         }
 
-        for (Map<String, Object> field : (List<Map<String, Object>>) entity.get("fields")) {
-            if (field.containsKey("field_annotations")) {
-                for (String annotation : (List<String>) field.get("field_annotations")) {
-                    if (lombokAnnotations.contains(annotation)) {
-                        presentAnnotations.add(annotation);
-                    }
+        void writeReport(String reportPath) throws IOException {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("spec_file", specFile);
+            report.put("generated_at", java.time.Instant.now().toString());
+            report.put("wall_time_ms", millis(wallNanos));
+
+            Map<String, Object> phases = new LinkedHashMap<>();
+            for (String phase : PHASES) {
+                LongAdder nanos = phaseNanos.get(phase);
+                if (nanos != null) {
+                    phases.put(phase, Map.of("wall_time_ms", millis(nanos.sum())));
                 }
             }
+            report.put("phases", phases);
+
+            Map<String, Object> kinds = new LinkedHashMap<>();
+            long totalFiles = 0;
+            long totalBytes = 0;
+            for (String kind : KINDS) {
+                ArtifactMetrics artifact = artifacts.get(kind);
+                if (artifact == null) {
+                    continue;
+                }
+                long files = artifact.files.sum();
+                long wall = artifact.wallNanos.sum();
+                Map<String, Object> values = new LinkedHashMap<>();
+                values.put("files", files);
+                values.put("bytes_written", artifact.bytes.sum());
+                values.put("wall_time_ms", millis(wall));
+                values.put("render_time_ms", millis(artifact.renderNanos.sum()));
+                values.put("write_time_ms", millis(artifact.writeNanos.sum()));
+                values.put("files_per_second", wall > 0 ? Math.round(files * 1_000_000_000.0 / wall) : 0);
+                values.put("failures", artifact.failures.sum());
+                kinds.put(kind, values);
+                totalFiles += files;
+                totalBytes += artifact.bytes.sum();
+            }
+            report.put("artifacts", kinds);
+
+            Map<String, Object> totals = new LinkedHashMap<>();
+            totals.put("files", totalFiles);
+            totals.put("bytes_written", totalBytes);
+            totals.put("files_per_second", wallNanos > 0 ? Math.round(totalFiles * 1_000_000_000.0 / wallNanos) : 0);
+            totals.put("failures", failures.size());
+            report.put("totals", totals);
+
+            List<Map<String, Object>> slowest = new ArrayList<>();
+            entityNanos.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                    .limit(SLOWEST_ENTITIES)
+                    .forEach(entry -> {
+                        Map<String, Object> entity = new LinkedHashMap<>();
+                        entity.put("entity", entry.getKey());
+                        entity.put("time_ms", millis(entry.getValue().sum()));
+                        slowest.add(entity);
+                    });
+            report.put("slowest_entities", slowest);
+            report.put("failures", new ArrayList<>(failures));
+
+            File reportFile = new File(reportPath).getAbsoluteFile();
+            reportFile.getParentFile().mkdirs();
+            objectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile, report);
+        }
+
+        private static double millis(long nanos) {
+            return Math.round(nanos / 10_000.0) / 100.0;
+        }
+    }
+
+    // Compiles the generated sources in memory against stub annotation types, one batch per worker, so that
+    // broken output is reported on every run instead of by the downstream build. Nothing is written.
+    static final class CompileVerifier {
+        private static final int MIN_BATCH_SIZE = 32;
+        private static final Map<String, String> DESCRIPTIONS = Map.of(
+                "models", "model class of the entity",
+                "repositories", "repository of the entity",
+                "services", "service of the entity",
+                "controllers", "controller of the entity",
+                "projections", "projection",
+                "interfaces", "interface",
+                "embeddables", "embeddable class",
+                "enums", "enum",
+                "config", "configuration class");
+
+        // Minimal declarations of the annotations and types the generated sources use; "persistence." stands for
+        // javax.persistence or jakarta.persistence.
+        private static final String STUBS = """
+                persistence.Entity: @interface Entity { String name() default ""; }
+                persistence.Table: @interface Table { String name() default ""; String schema() default ""; String catalog() default ""; Index[] indexes() default {}; UniqueConstraint[] uniqueConstraints() default {}; }
+                persistence.Index: @interface Index { String name() default ""; String columnList(); boolean unique() default false; }
+                persistence.UniqueConstraint: @interface UniqueConstraint { String name() default ""; String[] columnNames(); }
+                persistence.Id: @interface Id { }
+                persistence.EmbeddedId: @interface EmbeddedId { }
+                persistence.GeneratedValue: @interface GeneratedValue { GenerationType strategy() default GenerationType.AUTO; String generator() default ""; }
+                persistence.GenerationType: enum GenerationType { TABLE, SEQUENCE, IDENTITY, UUID, AUTO }
+                persistence.SequenceGenerator: @interface SequenceGenerator { String name(); String sequenceName() default ""; int initialValue() default 1; int allocationSize() default 50; }
+                persistence.Column: @interface Column { String name() default ""; boolean unique() default false; boolean nullable() default true; boolean insertable() default true; boolean updatable() default true; String columnDefinition() default ""; String table() default ""; int length() default 255; int precision() default 0; int scale() default 0; }
+                persistence.JoinColumn: @interface JoinColumn { String name() default ""; String referencedColumnName() default ""; boolean unique() default false; boolean nullable() default true; boolean insertable() default true; boolean updatable() default true; }
+                persistence.JoinTable: @interface JoinTable { String name() default ""; JoinColumn[] joinColumns() default {}; JoinColumn[] inverseJoinColumns() default {}; Index[] indexes() default {}; }
+                persistence.OneToOne: @interface OneToOne { Class<?> targetEntity() default void.class; CascadeType[] cascade() default {}; FetchType fetch() default FetchType.EAGER; boolean optional() default true; String mappedBy() default ""; boolean orphanRemoval() default false; }
+                persistence.OneToMany: @interface OneToMany { Class<?> targetEntity() default void.class; CascadeType[] cascade() default {}; FetchType fetch() default FetchType.LAZY; String mappedBy() default ""; boolean orphanRemoval() default false; }
+                persistence.ManyToOne: @interface ManyToOne { Class<?> targetEntity() default void.class; CascadeType[] cascade() default {}; FetchType fetch() default FetchType.EAGER; boolean optional() default true; }
+                persistence.ManyToMany: @interface ManyToMany { Class<?> targetEntity() default void.class; CascadeType[] cascade() default {}; FetchType fetch() default FetchType.LAZY; String mappedBy() default ""; }
+                persistence.CascadeType: enum CascadeType { ALL, PERSIST, MERGE, REMOVE, REFRESH, DETACH }
+                persistence.FetchType: enum FetchType { LAZY, EAGER }
+                persistence.Cacheable: @interface Cacheable { boolean value() default true; }
+                persistence.QueryHint: @interface QueryHint { String name(); String value(); }
+                persistence.Enumerated: @interface Enumerated { EnumType value() default EnumType.ORDINAL; }
+                persistence.EnumType: enum EnumType { ORDINAL, STRING }
+                persistence.Embedded: @interface Embedded { }
+                persistence.Embeddable: @interface Embeddable { }
+                persistence.MappedSuperclass: @interface MappedSuperclass { }
+                persistence.Inheritance: @interface Inheritance { InheritanceType strategy() default InheritanceType.SINGLE_TABLE; }
+                persistence.InheritanceType: enum InheritanceType { SINGLE_TABLE, TABLE_PER_CLASS, JOINED }
+                persistence.DiscriminatorColumn: @interface DiscriminatorColumn { String name() default "DTYPE"; }
+                persistence.DiscriminatorValue: @interface DiscriminatorValue { String value(); }
+                persistence.OrderBy: @interface OrderBy { String value() default ""; }
+                persistence.Transient: @interface Transient { }
+                persistence.Lob: @interface Lob { }
+                persistence.Version: @interface Version { }
+                persistence.Basic: @interface Basic { FetchType fetch() default FetchType.EAGER; boolean optional() default true; }
+                persistence.ElementCollection: @interface ElementCollection { Class<?> targetClass() default void.class; FetchType fetch() default FetchType.LAZY; }
+                persistence.Temporal: @interface Temporal { TemporalType value(); }
+                persistence.TemporalType: enum TemporalType { DATE, TIME, TIMESTAMP }
+                persistence.PersistenceContext: @interface PersistenceContext { String name() default ""; String unitName() default ""; }
+                persistence.EntityManager: interface EntityManager { void persist(Object entity); <T> T merge(T entity); void remove(Object entity); <T> T find(Class<T> entityClass, Object primaryKey); <T> TypedQuery<T> createQuery(String qlString, Class<T> resultClass); Query createQuery(String qlString); void flush(); void clear(); void detach(Object entity); }
+                persistence.Query: interface Query { List getResultList(); Object getSingleResult(); int executeUpdate(); Query setParameter(String name, Object value); Query setFirstResult(int startPosition); Query setMaxResults(int maxResult); Query setHint(String hintName, Object value); }
+                persistence.TypedQuery: interface TypedQuery<X> extends Query { List<X> getResultList(); X getSingleResult(); TypedQuery<X> setParameter(String name, Object value); TypedQuery<X> setFirstResult(int startPosition); TypedQuery<X> setMaxResults(int maxResult); TypedQuery<X> setHint(String hintName, Object value); }
+                lombok.Data: @interface Data { }
+                lombok.Getter: @interface Getter { }
+                lombok.Setter: @interface Setter { }
+                lombok.NoArgsConstructor: @interface NoArgsConstructor { }
+                lombok.AllArgsConstructor: @interface AllArgsConstructor { }
+                lombok.RequiredArgsConstructor: @interface RequiredArgsConstructor { }
+                lombok.Builder: @interface Builder { }
+                lombok.ToString: @interface ToString { boolean callSuper() default false; }
+                lombok.EqualsAndHashCode: @interface EqualsAndHashCode { boolean callSuper() default false; }
+                org.springframework.stereotype.Component: @interface Component { String value() default ""; }
+                org.springframework.stereotype.Repository: @interface Repository { String value() default ""; }
+                org.springframework.stereotype.Service: @interface Service { String value() default ""; }
+                org.springframework.stereotype.Controller: @interface Controller { String value() default ""; }
+                org.springframework.beans.factory.annotation.Autowired: @interface Autowired { boolean required() default true; }
+                org.springframework.scheduling.annotation.Async: @interface Async { String value() default ""; }
+                org.springframework.transaction.annotation.Transactional: @interface Transactional { boolean readOnly() default false; int timeout() default -1; }
+                org.springframework.data.jpa.repository.JpaRepository: interface JpaRepository<T, ID> { List<T> findAll(); List<T> findAllById(Iterable<ID> ids); Optional<T> findById(ID id); boolean existsById(ID id); long count(); <S extends T> S save(S entity); <S extends T> List<S> saveAll(Iterable<S> entities); void deleteById(ID id); void delete(T entity); void flush(); org.springframework.data.domain.Page<T> findAll(org.springframework.data.domain.Pageable pageable); }
+                org.springframework.data.jpa.repository.Modifying: @interface Modifying { boolean flushAutomatically() default false; boolean clearAutomatically() default false; }
+                org.springframework.data.jpa.repository.EntityGraph: @interface EntityGraph { String value() default ""; String[] attributePaths() default {}; }
+                org.hibernate.annotations.BatchSize: @interface BatchSize { int size(); }
+                org.hibernate.annotations.Cache: @interface Cache { CacheConcurrencyStrategy usage(); String region() default ""; boolean includeLazy() default true; }
+                org.hibernate.annotations.CacheConcurrencyStrategy: enum CacheConcurrencyStrategy { NONE, READ_ONLY, NONSTRICT_READ_WRITE, READ_WRITE, TRANSACTIONAL }
+                org.hibernate.annotations.NaturalId: @interface NaturalId { boolean mutable() default false; }
+                org.springframework.data.jpa.repository.QueryHints: @interface QueryHints { {{persistencePackage}}.QueryHint[] value() default {}; boolean forCounting() default true; }
+                org.springframework.data.jpa.repository.Query: @interface Query { String value() default ""; boolean nativeQuery() default false; }
+                org.springframework.data.repository.query.Param: @interface Param { String value(); }
+                org.springframework.data.domain.Sort: class Sort { public static Sort by(String... properties) { return null; } }
+                org.springframework.data.domain.Pageable: interface Pageable { int getPageNumber(); int getPageSize(); }
+                org.springframework.data.domain.PageRequest: class PageRequest implements org.springframework.data.domain.Pageable { public static PageRequest of(int page, int size) { return null; } public static PageRequest of(int page, int size, org.springframework.data.domain.Sort sort) { return null; } public int getPageNumber() { return 0; } public int getPageSize() { return 0; } }
+                org.springframework.data.domain.Page: interface Page<T> { List<T> getContent(); int getNumber(); int getSize(); long getTotalElements(); int getTotalPages(); boolean hasNext(); }
+                org.springframework.web.bind.annotation.RestController: @interface RestController { String value() default ""; }
+                org.springframework.web.bind.annotation.RequestMapping: @interface RequestMapping { String[] value() default {}; String[] path() default {}; String[] params() default {}; String[] consumes() default {}; String[] produces() default {}; }
+                org.springframework.web.bind.annotation.GetMapping: @interface GetMapping { String[] value() default {}; String[] path() default {}; String[] params() default {}; String[] consumes() default {}; String[] produces() default {}; }
+                org.springframework.web.bind.annotation.PostMapping: @interface PostMapping { String[] value() default {}; String[] path() default {}; String[] params() default {}; String[] consumes() default {}; String[] produces() default {}; }
+                org.springframework.web.bind.annotation.PutMapping: @interface PutMapping { String[] value() default {}; String[] path() default {}; String[] params() default {}; String[] consumes() default {}; String[] produces() default {}; }
+                org.springframework.web.bind.annotation.PatchMapping: @interface PatchMapping { String[] value() default {}; String[] path() default {}; String[] params() default {}; String[] consumes() default {}; String[] produces() default {}; }
+                org.springframework.web.bind.annotation.DeleteMapping: @interface DeleteMapping { String[] value() default {}; String[] path() default {}; String[] params() default {}; String[] consumes() default {}; String[] produces() default {}; }
+                org.springframework.web.bind.annotation.PathVariable: @interface PathVariable { String value() default ""; String name() default ""; boolean required() default true; }
+                org.springframework.web.bind.annotation.RequestParam: @interface RequestParam { String value() default ""; String name() default ""; boolean required() default true; String defaultValue() default ""; }
+                org.springframework.web.bind.annotation.RequestBody: @interface RequestBody { boolean required() default true; }
+                org.springframework.web.bind.annotation.ResponseStatus: @interface ResponseStatus { org.springframework.http.HttpStatus value() default org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR; }
+                org.springframework.http.HttpStatus: enum HttpStatus { OK, CREATED, ACCEPTED, NO_CONTENT, BAD_REQUEST, NOT_FOUND, CONFLICT, INTERNAL_SERVER_ERROR }
+                org.springframework.http.ResponseEntity: class ResponseEntity<T> { public static <T> ResponseEntity<T> ok(T body) { return null; } public static <T> ResponseEntity<T> of(Optional<T> body) { return null; } public static Builder ok() { return null; } public static Builder notFound() { return null; } public static Builder noContent() { return null; } public static Builder status(HttpStatus status) { return null; } public interface Builder { <T> ResponseEntity<T> build(); <T> ResponseEntity<T> body(T body); } }
+                """;
+
+        private final GeneratorConfig config;
+        private final Path root;
+        private final Map<String, GeneratedSource> sources = new ConcurrentHashMap<>();
+        private final AtomicInteger errorCount = new AtomicInteger();
+        private final AtomicInteger failedFiles = new AtomicInteger();
+        private long verifyNanos;
+
+        CompileVerifier(GeneratorConfig config) {
+            this.config = config;
+            this.root = Paths.get(config.outputDir()).toAbsolutePath().normalize();
         }
 
-        if (!presentAnnotations.isEmpty()) {
-            classCode.append("import lombok.*;\n\n");
+        // A generated source, or a stub, served to the compiler from memory.
+        private static final class GeneratedSource extends SimpleJavaFileObject {
+            final String binaryName;
+            final String packageName;
+            final String relativePath;
+            final String description;
+            final String content;
+
+            GeneratedSource(String relativePath, String description, String content) {
+                super(URI.create("mem:///" + relativePath), Kind.SOURCE);
+                String className = relativePath.substring(0, relativePath.length() - Kind.SOURCE.extension.length());
+                int lastSlash = className.lastIndexOf('/');
+                this.binaryName = className.replace('/', '.');
+                this.packageName = lastSlash < 0 ? "" : className.substring(0, lastSlash).replace('/', '.');
+                this.relativePath = relativePath;
+                this.description = description;
+                this.content = content;
+            }
+
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return content;
+            }
         }
 
-        if (entity.containsKey("entity_supplementary_annotations")) {
-            for (String annotation : (List<String>) entity.get("entity_supplementary_annotations")) {
-                if (lombokAnnotations.contains(annotation)) {
-                    classCode.append(annotation).append("\n");
+        private static List<GeneratedSource> stubSources(String persistencePackage) {
+            List<GeneratedSource> stubs = new ArrayList<>();
+            for (String line : STUBS.split("\n")) {
+                int separator = line.indexOf(": ");
+                String name = line.substring(0, separator);
+                List<String> qualifiedNames = name.startsWith("persistence.")
+                        ? List.of("javax." + name, "jakarta." + name)
+                        : List.of(name);
+                for (String qualifiedName : qualifiedNames) {
+                    String packageName = qualifiedName.substring(0, qualifiedName.lastIndexOf('.'));
+                    String declaration = line.substring(separator + 2).replace("{{persistencePackage}}", persistencePackage);
+                    String content = "package " + packageName + ";\n\nimport java.util.*;\n\npublic " + declaration + "\n";
+                    stubs.add(new GeneratedSource(qualifiedName.replace('.', '/') + ".java", "stub", content));
                 }
             }
+            return stubs;
         }
 
-        if ((Boolean) entity.get("entity_is_parent")) {
-            if ((Boolean) configurationVariables.get("jpa_used")) {
-                classCode.append(generateInheritanceAnnotations(entity));
+        void add(String kind, String name, String filePath, String content) {
+            if (!filePath.endsWith(".java") || (kind.equals("config") && config.compileVerificationClasspath().isEmpty())) {
+                return;
             }
-            classCode.append("public abstract class ").append(entity.get("entity_name")).append(configurationVariables.get("entity_suffix"));
-        } else if (entity.containsKey("entity_parent_name")) {
+            String relativePath = root.relativize(Paths.get(filePath).toAbsolutePath().normalize()).toString().replace(File.separatorChar, '/');
+            String description = DESCRIPTIONS.getOrDefault(kind, kind) + " '" + name + "'";
+            sources.put(relativePath, new GeneratedSource(relativePath, description, content));
+        }
+
+        // Files left untouched by incremental generation are read back from the output directory.
+        void addExisting(String kind, String name, String filePath) {
             try {
-                Map<String, Object> parentEntity = entities.stream()
-                        .filter(e -> e.get("entity_name").equals(entity.get("entity_parent_name")))
-                        .findFirst()
-                        .orElseThrow(() -> new IllegalArgumentException("Parent entity '" + entity.get("entity_parent_name") + "' not found for entity '" + entity.get("entity_name") + "'"));
+                add(kind, name, filePath, Files.readString(Paths.get(filePath)));
+            } catch (IOException e) {
+                metrics.recordFailure("verify", "Error reading " + filePath + " for compile verification: " + e.getMessage());
+            }
+        }
 
-                String parentStrategy = (String) parentEntity.get("entity_inheritance_strategy");
+        void verify() {
+            long start = System.nanoTime();
+            List<GeneratedSource> ordered = new ArrayList<>(sources.values());
+            ordered.sort(Comparator.comparing(source -> source.relativePath));
 
-                if ((Boolean) configurationVariables.get("jpa_used")) {
-                    if (parentStrategy.equals("SINGLE_TABLE")) {
-                        classCode.append("@Entity\n@DiscriminatorValue(\"").append(entity.get("discriminator_value")).append("\")\n");
-                    } else if (parentStrategy.equals("JOINED")) {
-                        classCode.append("@Entity\n@Table(name=\"").append(entity.get("entity_name")).append("s\")\n");
-                    } else if (parentStrategy.equals("TABLE_PER_CLASS")) {
-                        classCode.append("@Entity\n@Table(name=\"").append(entity.get("entity_name")).append("s\")\n");
-                    } else if (parentStrategy.equals("MAPPED_SUPERCLASS") || parentStrategy.equals("MAPPED_SUPER_CLASS")) {
-                        classCode.append("@Entity\n@Table(name=\"").append(entity.get("entity_name")).append("s\")\n");
-                    }
+            Map<String, List<JavaFileObject>> sourcePath = new HashMap<>();
+            if (config.compileVerificationClasspath().isEmpty()) {
+                for (GeneratedSource stub : stubSources(config.persistencePackage())) {
+                    sourcePath.computeIfAbsent(stub.packageName, key -> new ArrayList<>()).add(stub);
                 }
-
-                classCode.append("public class ").append(entity.get("entity_name")).append(configurationVariables.get("entity_suffix")).append(" extends ").append(entity.get("entity_parent_name")).append(configurationVariables.get("entity_suffix"));
-            } catch (Exception e) {
-                throw new IllegalArgumentException("Parent entity '" + entity.get("entity_parent_name") + "' not found for entity '" + entity.get("entity_name") + "'");
             }
-        } else {
-            if ((Boolean) configurationVariables.get("jpa_used")) {
-                classCode.append("@Entity\n@Table(name=\"").append(entity.get("entity_name")).append("s\")\n");
+            for (GeneratedSource source : ordered) {
+                sourcePath.computeIfAbsent(source.packageName, key -> new ArrayList<>()).add(source);
             }
-            classCode.append("public class ").append(entity.get("entity_name")).append(configurationVariables.get("entity_suffix"));
+
+            int workers = generationPool != null ? generationPool.getParallelism() : 1;
+            int batchCount = Math.max(1, Math.min(workers, ordered.size() / MIN_BATCH_SIZE));
+            int batchSize = (ordered.size() + batchCount - 1) / batchCount;
+            forEachIndex("verify", batchCount, i -> compile(ordered.subList(Math.min(ordered.size(), i * batchSize), Math.min(ordered.size(), (i + 1) * batchSize)), sourcePath));
+            verifyNanos = System.nanoTime() - start;
         }
 
-        if (entity.containsKey("interfaces_implemented") || (Boolean) configurationVariables.get("jpa_used") || (!(Boolean) configurationVariables.get("jpa_used") && (Boolean) configurationVariables.get("pojo_model_beanified"))) {
-            classCode.append(" implements");
-            if ((Boolean) configurationVariables.get("jpa_used") || (!(Boolean) configurationVariables.get("jpa_used") && (Boolean) configurationVariables.get("pojo_model_beanified"))) {
-                classCode.append(" Serializable");
-                if (entity.containsKey("interfaces_implemented")) {
-                    classCode.append(", ").append(String.join(", ", (List<String>) entity.get("interfaces_implemented")));
+        private String compile(List<GeneratedSource> batch, Map<String, List<JavaFileObject>> sourcePath) {
+            if (batch.isEmpty()) {
+                return null;
+            }
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8);
+            try (SourceFileManager fileManager = new SourceFileManager(standardFileManager, sourcePath)) {
+                List<File> classpath = new ArrayList<>();
+                for (String entry : config.compileVerificationClasspath().split(File.pathSeparator)) {
+                    if (!entry.isBlank()) {
+                        classpath.add(new File(entry));
+                    }
                 }
-            } else {
-                classCode.append(" ").append(String.join(", ", (List<String>) entity.get("interfaces_implemented")));
+                standardFileManager.setLocation(StandardLocation.CLASS_PATH, classpath);
+                compiler.getTask(null, fileManager, diagnostics, List.of("-proc:none", "-implicit:none", "-nowarn", "-Xmaxerrs", "100000", "-XDshould-stop.ifError=FLOW"), null, batch).call();
+            } catch (IOException e) {
+                return "Error while verifying the generated sources: " + e.getMessage();
             }
-        }
-        classCode.append(" {\n");
 
-        for (Map<String, Object> field : (List<Map<String, Object>>) entity.get("fields")) {
-            classCode.append(generateField(field, configurationVariables, (String) entity.get("entity_name")));
+            Map<GeneratedSource, List<Diagnostic<? extends JavaFileObject>>> errorsBySource = new HashMap<>();
+            StringBuilder errors = new StringBuilder();
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                if (diagnostic.getKind() != Diagnostic.Kind.ERROR) {
+                    continue;
+                }
+                if (diagnostic.getSource() instanceof GeneratedSource source) {
+                    if (batch.contains(source)) {
+                        errorsBySource.computeIfAbsent(source, key -> new ArrayList<>()).add(diagnostic);
+                    }
+                } else {
+                    errors.append(errors.length() > 0 ? "\n" : "").append("Error while verifying the generated sources: ").append(message(diagnostic));
+                }
+            }
+            for (GeneratedSource source : batch) {
+                List<Diagnostic<? extends JavaFileObject>> sourceErrors = errorsBySource.get(source);
+                if (sourceErrors == null) {
+                    continue;
+                }
+                Diagnostic<? extends JavaFileObject> first = sourceErrors.get(0);
+                int others = sourceErrors.size() - 1;
+                errorCount.addAndGet(sourceErrors.size());
+                failedFiles.incrementAndGet();
+                errors.append(errors.length() > 0 ? "\n" : "")
+                        .append("Error compiling the ").append(source.description)
+                        .append(" (").append(source.relativePath).append(':').append(first.getLineNumber()).append("): ")
+                        .append(message(first))
+                        .append(others > 0 ? " (+" + others + " more error" + (others > 1 ? "s" : "") + ")" : "");
+            }
+            return errors.length() > 0 ? errors.toString() : null;
         }
 
-        if ((Boolean) configurationVariables.get("add_models_no_and_all_args_constructors") && !presentAnnotations.stream().anyMatch(annotation -> annotation.equals("@NoArgsConstructor") || annotation.equals("@RequiredArgsConstructor") || annotation.equals("@AllArgsConstructor"))) {
-            classCode.append(generateConstructors(entity, configurationVariables));
+        // javac puts the symbol and its location on the following lines of the message.
+        private static String message(Diagnostic<? extends JavaFileObject> diagnostic) {
+            return diagnostic.getMessage(Locale.ROOT).strip().replaceAll("\\s*\\n\\s*", ", ").replaceAll("\\s+", " ");
         }
 
-        if ((Boolean) configurationVariables.get("add_model_class_getters_setters") && !presentAnnotations.stream().anyMatch(annotation -> annotation.equals("@Getter") || annotation.equals("@Setter") || annotation.equals("@Data") || annotation.equals("@Value"))) {
-            classCode.append(generateGettersSetters(entity));
+        String summary() {
+            String result = errorCount.get() == 0
+                    ? "no errors"
+                    : errorCount.get() + " errors in " + failedFiles.get() + " files";
+            return String.format(Locale.ROOT, "\t🧪 %d generated sources compiled in memory in %.1f ms: %s.", sources.size(), verifyNanos / 1_000_000.0, result);
         }
 
-        if ((Boolean) configurationVariables.get("add_model_class_hashcode_equals_tostring_methods") && !presentAnnotations.stream().anyMatch(annotation -> annotation.equals("@EqualsAndHashCode") || annotation.equals("@ToString") || annotation.equals("@Data") || annotation.equals("@Value"))) {
-            classCode.append(generateStandardMethods(entity));
+        // Serves the in-memory sources on the source path and discards the compiled classes.
+        private static final class SourceFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+            private final Map<String, List<JavaFileObject>> sourcePath;
+
+            SourceFileManager(StandardJavaFileManager fileManager, Map<String, List<JavaFileObject>> sourcePath) {
+                super(fileManager);
+                this.sourcePath = sourcePath;
+            }
+
+            @Override
+            public boolean hasLocation(Location location) {
+                return location == StandardLocation.SOURCE_PATH || super.hasLocation(location);
+            }
+
+            @Override
+            public Iterable<JavaFileObject> list(Location location, String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException {
+                if (location == StandardLocation.SOURCE_PATH) {
+                    return kinds.contains(JavaFileObject.Kind.SOURCE) ? sourcePath.getOrDefault(packageName, List.of()) : List.of();
+                }
+                return super.list(location, packageName, kinds, recurse);
+            }
+
+            @Override
+            public String inferBinaryName(Location location, JavaFileObject file) {
+                if (file instanceof GeneratedSource source) {
+                    return source.binaryName;
+                }
+                return super.inferBinaryName(location, file);
+            }
+
+            @Override
+            public boolean isSameFile(FileObject a, FileObject b) {
+                if (a instanceof GeneratedSource || b instanceof GeneratedSource) {
+                    return a == b;
+                }
+                return super.isSameFile(a, b);
+            }
+
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return OutputStream.nullOutputStream();
+                    }
+                };
+            }
         }
+    }
 
-        classCode.append("}\n");
-        return classCode.toString();
+    // JFR events, recorded when "jfr_events" is enabled and a flight recording is running
+    // (for example with -XX:StartFlightRecording).
+    @Name("ci.abidjan.adi.GenerationPhase")
+    @Label("Generation Phase")
+    @Category("Java Class Generator")
+    static class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
     }
 
-    private static String generateInheritanceAnnotations(Map<String, Object> entity) {
-        StringBuilder annotations = new StringBuilder();
-        String inheritanceStrategy = (String) entity.get("entity_inheritance_strategy");
+    @Name("ci.abidjan.adi.ArtifactGenerated")
+    @Label("Artifact Generated")
+    @Category("Java Class Generator")
+    static class ArtifactGeneratedEvent extends Event {
+        @Label("Kind")
+        String kind;
 
-        if (inheritanceStrategy.equals("SINGLE_TABLE")) {
-            annotations.append("@Entity\n@Table(name=\"").append(entity.get("entity_name")).append("s\")\n@Inheritance(strategy = InheritanceType.SINGLE_TABLE)\n");
-        } else if (inheritanceStrategy.equals("JOINED")) {
-            annotations.append("@Entity\n@Table(name=\"").append(entity.get("entity_name")).append("s\")\n@Inheritance(strategy = InheritanceType.JOINED)\n");
-        } else if (inheritanceStrategy.equals("TABLE_PER_CLASS")) {
-            annotations.append("@Entity\n@Table(name=\"").append(entity.get("entity_name")).append("s\")\n@Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)\n");
-        } else if (inheritanceStrategy.equals("MAPPED_SUPERCLASS") || inheritanceStrategy.equals("MAPPED_SUPER_CLASS")) {
-            annotations.append("@MappedSuperclass\n");
-        }
+        @Label("Name")
+        String name;
 
-        return annotations.toString();
+        @Label("Bytes Written")
+        @DataAmount
+        long bytes;
     }
 
-    private static String generateField(Map<String, Object> field, Map<String, Object> configurationVariables, String entityName) {
-        String fieldName = (String) field.getOrDefault("field_name", "");
-        String fieldType = (String) field.getOrDefault("field_type", "");
-        List<String> annotations = (List<String>) field.getOrDefault("field_annotations", new ArrayList<>());
+    @Name("ci.abidjan.adi.GenerationRun")
+    @Label("Generation Run")
+    @Category("Java Class Generator")
+    static class GenerationRunEvent extends Event {
+        @Label("Spec File")
+        String specFile;
 
-        String idGeneratedValue = (String) configurationVariables.getOrDefault("id_generated_value", "IDENTITY");
+        @Label("Wall Time (ms)")
+        double wallTimeMillis;
 
-        if ((fieldName.equals("id") || fieldName.toLowerCase().equals(entityName.toLowerCase() + "id") || fieldName.toLowerCase().equals(entityName.toLowerCase() + "Id") || fieldName.toLowerCase().equals(entityName.toLowerCase() + "ID") || fieldName.toLowerCase().equals(entityName.toLowerCase() + "iD") || fieldName.toLowerCase().equals(entityName.toLowerCase() + "_id") || fieldName.toLowerCase().equals(entityName.toLowerCase() + "_Id") || fieldName.toLowerCase().equals(entityName.toLowerCase() + "_ID") || fieldName.toLowerCase().equals(entityName.toLowerCase() + "_iD")) && fieldType.isEmpty()) {
-            fieldType = "Long";
-            if (annotations.isEmpty()) {
-                annotations = Arrays.asList("@Id", "@GeneratedValue(strategy = GenerationType." + idGeneratedValue + ")");
-            }
-        }
+        @Label("Files")
+        long files;
 
-        if (fieldType.isEmpty() && annotations.isEmpty()) {
-            fieldType = "String";
-            annotations = Arrays.asList("@Column(name = \"" + fieldName + "\")");
+        @Label("Bytes Written")
+        @DataAmount
+        long bytesWritten;
+
+        @Label("Failures")
+        long failures;
+    }
+
+    // Destination of the generated files. The generators build paths under OUT_PUT_DIR; archive and
+    // in-memory sinks store them relative to it. Every sink may be written from several workers.
+    private abstract static class OutputSink implements Closeable {
+        static final List<String> KINDS = List.of("directory", "zip", "jar", "memory");
+
+        protected final String outputDir;
+        protected final Path root;
+
+        OutputSink(String outputDir) {
+            this.outputDir = outputDir;
+            this.root = Paths.get(outputDir).normalize();
         }
 
-        StringBuilder fieldCode = new StringBuilder();
-        if ((Boolean) configurationVariables.get("jpa_used")) {
-            fieldCode.append(addFieldAnnotations(annotations, fieldName, fieldType));
+        static OutputSink create(GeneratorConfig config) throws IOException {
+            if (outputSink instanceof DirectorySink && config.outputSink().equals("directory") && outputSink.outputDir.equals(config.outputDir())) {
+                return outputSink;
+            }
+            switch (config.outputSink()) {
+                case "zip":
+                case "jar":
+                    String archive = config.outputArchive().isEmpty() ? config.outputDir() + "." + config.outputSink() : config.outputArchive();
+                    return new ArchiveSink(config.outputDir(), archive, config.outputSink().equals("jar"));
+                case "memory":
+                    return new MemorySink(config.outputDir());
+                default:
+                    return new DirectorySink(config.outputDir());
+            }
         }
 
-        fieldCode.append("    private ").append(fieldType).append(" ").append(fieldName).append(";\n\n");
-        return fieldCode.toString();
-    }
+        abstract void write(String filePath, byte[] content) throws IOException;
 
-    private static String addFieldAnnotations(List<String> annotations, String fieldName, String fieldType) {
-        StringBuilder result = new StringBuilder();
-        String baseType = fieldType.contains("<") ? fieldType.split("<")[1].replace(">", "") : fieldType;
+        abstract boolean exists(String filePath);
 
-        for (String annotation : annotations) {
-            switch (annotation) {
-                case "@OneToOneJoinColumn":
-                    result.append("    @OneToOne\n    @JoinColumn(name = \"").append(fieldName).append("_id\")\n");
-                    break;
-                case "@OneToOneMappedBy":
-                    result.append("    @OneToOne(mappedBy = \"").append(fieldName).append("\")\n");
-                    break;
-                case "@OneToManyMappedBy":
-                    result.append("    @OneToMany(mappedBy = \"").append(fieldName).append("\")\n");
-                    break;
-                case "@ManyToOneJoinColumn":
-                    result.append("    @ManyToOne\n    @JoinColumn(name = \"").append(fieldName).append("_id\")\n");
-                    break;
-                case "@ManyToManyJoinTable":
-                    String tableName = fieldName + "_" + baseType.toLowerCase();
-                    result.append("    @ManyToMany\n    @JoinTable(\n");
-                    result.append("        name = \"").append(tableName).append("\",\n");
-                    result.append("        joinColumns = @JoinColumn(name = \"").append(fieldName).append("_id\"),\n");
-                    result.append("        inverseJoinColumns = @JoinColumn(name = \"").append(baseType.toLowerCase()).append("_id\")\n");
-                    result.append("    )\n");
-                    break;
-                case "@ManyToManyMappedBy":
-                    result.append("    @ManyToMany(mappedBy = \"").append(fieldName).append("\")\n");
-                    break;
-                case "@Enum":
-                case "@Enumerated":
-                    result.append("    @Enumerated(EnumType.STRING)\n");
-                    break;
-                case "@Embedded":
-                    result.append("    @Embedded\n");
-                    break;
-                default:
-                    result.append("    ").append(annotation).append("\n");
-                    break;
+        abstract boolean delete(String filePath) throws IOException;
+
+        abstract String location();
+
+        // Reads the written files back once the sink is closed.
+        abstract Reader reader() throws IOException;
+
+        interface Reader extends Closeable {
+            byte[] read(String filePath) throws IOException;
+
+            @Override
+            default void close() throws IOException {
             }
         }
-        return result.toString();
-    }
 
-    private static String generateConstructors(Map<String, Object> entity, Map<String, Object> configurationVariables) {
-        StringBuilder constructors = new StringBuilder();
-        constructors.append("    // Constructors\n");
-        constructors.append("    public ").append(entity.get("entity_name")).append(configurationVariables.get("entity_suffix")).append("() {\n");
-        constructors.append("    }\n");
-        constructors.append("    public ").append(entity.get("entity_name")).append(configurationVariables.get("entity_suffix")).append("(");
-        constructors.append(String.join(", ", ((List<Map<String, Object>>) entity.get("fields")).stream().map(field -> field.get("field_type") + " " + field.get("field_name")).toArray(String[]::new)));
-        constructors.append(") {\n");
-        for (Map<String, Object> field : (List<Map<String, Object>>) entity.get("fields")) {
-            constructors.append("        this.").append(field.get("field_name")).append(" = ").append(field.get("field_name")).append(";\n");
-        }
-        constructors.append("    }\n");
-        return constructors.toString();
-    }
-
-    private static String generateGettersSetters(Map<String, Object> entity) {
-        StringBuilder gettersSetters = new StringBuilder();
-        gettersSetters.append("    // Getters and setters\n");
-        for (Map<String, Object> field : (List<Map<String, Object>>) entity.get("fields")) {
-            String fieldName = (String) field.get("field_name");
-            String fieldType = (String) field.get("field_type");
-            String getter = "get" + camelize(fieldName);
-            String setter = "set" + camelize(fieldName);
-
-            gettersSetters.append("    public ").append(fieldType).append(" ").append(getter).append("() {\n");
-            gettersSetters.append("        return ").append(fieldName).append(";\n");
-            gettersSetters.append("    }\n");
-            gettersSetters.append("    public void ").append(setter).append("(").append(fieldType).append(" ").append(fieldName).append(") {\n");
-            gettersSetters.append("        this.").append(fieldName).append(" = ").append(fieldName).append(";\n");
-            gettersSetters.append("    }\n");
-        }
-        return gettersSetters.toString();
-    }
-
-    private static String generateStandardMethods(Map<String, Object> entity) {
-        StringBuilder methods = new StringBuilder();
-        methods.append("    // hashCode(), equals(), toString()\n");
-        methods.append("    @Override\n");
-        methods.append("    public int hashCode() {\n");
-        if (!((List<?>) entity.get("fields")).isEmpty()) {
-            methods.append("        return ").append(((List<Map<String, Object>>) entity.get("fields")).get(0).get("field_name")).append(".hashCode();\n");
-        } else {
-            methods.append("        return super.hashCode();\n");
-        }
-        methods.append("    }\n");
-        methods.append("    @Override\n");
-        methods.append("    public boolean equals(Object obj) {\n");
-        methods.append("        if (this == obj) return true;\n");
-        methods.append("        if (obj == null || getClass() != obj.getClass()) return false;\n");
-        methods.append("        ").append(entity.get("entity_name")).append(" that = (").append(entity.get("entity_name")).append(") obj;\n");
-        if (!((List<?>) entity.get("fields")).isEmpty()) {
-            methods.append("        return ").append(((List<Map<String, Object>>) entity.get("fields")).get(0).get("field_name")).append(".equals(that.").append(((List<Map<String, Object>>) entity.get("fields")).get(0).get("field_name")).append(");\n");
-        } else {
-            methods.append("        return super.equals(obj);\n");
+        protected String entryName(String filePath) {
+            return root.relativize(Paths.get(filePath).normalize()).toString().replace(File.separatorChar, '/');
         }
-        methods.append("    }\n");
-        methods.append("    @Override\n");
-        methods.append("    public String toString() {\n");
-        methods.append("        return \"").append(entity.get("entity_name")).append("{\" +\n");
-        for (Map<String, Object> field : (List<Map<String, Object>>) entity.get("fields")) {
-            methods.append("                \"").append(field.get("field_name")).append("='\" + String.valueOf(").append(field.get("field_name")).append(") + '\\'' +\n");
+
+        @Override
+        public void close() throws IOException {
         }
-        methods.append("                '}';\n");
-        methods.append("    }\n");
-        return methods.toString();
     }
 
-    private static void generateInterfaces(List<Map<String, Object>> interfaceClasses, Map<String, Object> configurationVariables) {
-        String outputDir = (String) configurationVariables.getOrDefault("OUT_PUT_DIR", "./generated_classes");
-        String _package = (String) configurationVariables.getOrDefault("model_classes__package", "");
-        String _packagePath = _package.replace(".", "/");
-        String interfaceOutputDir = outputDir + "/" + _packagePath;
-        new File(interfaceOutputDir).mkdirs();
+    // Loose file tree; each directory is created once per run instead of once per artifact kind or file.
+    private static final class DirectorySink extends OutputSink {
+        private final Set<Path> createdDirectories = ConcurrentHashMap.newKeySet();
 
-        for (Map<String, Object> interfaceClass : interfaceClasses) {
-            String interfaceName = (String) interfaceClass.get("interface_name");
-            List<String> methods = (List<String>) interfaceClass.get("methods");
+        DirectorySink(String outputDir) {
+            super(outputDir);
+        }
 
-            StringBuilder interfaceCode = new StringBuilder();
-            interfaceCode.append("_package ").append(_package).append(";\n\n");
-            interfaceCode.append("public interface ").append(interfaceName).append(" {\n");
-            for (String method : methods) {
-                interfaceCode.append("    ").append(method).append(";\n");
+        @Override
+        void write(String filePath, byte[] content) throws IOException {
+            Path path = Paths.get(filePath);
+            Path directory = path.getParent();
+            if (directory != null && !createdDirectories.contains(directory)) {
+                Files.createDirectories(directory);
+                createdDirectories.add(directory);
             }
-            interfaceCode.append("}\n");
-
-            String filePath = interfaceOutputDir + "/" + interfaceName + ".java";
             try {
-                Files.write(Paths.get(filePath), interfaceCode.toString().getBytes());
-            } catch (IOException e) {
-                System.out.println("Error writing interface file: " + e.getMessage());
+                Files.write(path, content);
+            } catch (NoSuchFileException e) {
+                Files.createDirectories(directory);
+                Files.write(path, content);
             }
         }
-    }
 
-    private static void generateEmbeddables(List<Map<String, Object>> embeddableClasses, Map<String, Object> configurationVariables) {
-        String outputDir = (String) configurationVariables.getOrDefault("OUT_PUT_DIR", "./generated_classes");
-        String _package = (String) configurationVariables.getOrDefault("model_classes__package", "");
-        String _packagePath = _package.replace(".", "/");
-        String embeddableOutputDir = outputDir + "/" + _packagePath;
-        new File(embeddableOutputDir).mkdirs();
+        @Override
+        boolean exists(String filePath) {
+            return Files.exists(Paths.get(filePath));
+        }
 
-        for (Map<String, Object> embeddable : embeddableClasses) {
-            String embeddableName = (String) embeddable.get("embeddable_name");
-            List<Map<String, Object>> fields = (List<Map<String, Object>>) embeddable.get("fields");
+        @Override
+        boolean delete(String filePath) throws IOException {
+            return Files.deleteIfExists(Paths.get(filePath));
+        }
 
-            StringBuilder embeddableCode = new StringBuilder();
-            embeddableCode.append("_package ").append(_package).append(";\n\n");
+        @Override
+        String location() {
+            return outputDir;
+        }
 
-            if ((Boolean) configurationVariables.getOrDefault("jpa_used", false)) {
-                if ((Boolean) configurationVariables.getOrDefault("jakarta_persistence_api", false)) {
-                    embeddableCode.append("import jakarta.persistence.*;\n\n");
-                } else {
-                    embeddableCode.append("import javax.persistence.*;\n\n");
-                }
+        @Override
+        Reader reader() {
+            return filePath -> Files.readAllBytes(Paths.get(filePath));
+        }
+    }
+
+    // Single zip stream (or source jar with a manifest) written through one buffered channel.
+    private static final class ArchiveSink extends OutputSink {
+        private final String archive;
+        private final ZipOutputStream out;
+        private final Set<String> entries = new HashSet<>();
+
+        ArchiveSink(String outputDir, String archive, boolean jar) throws IOException {
+            super(outputDir);
+            this.archive = archive;
+            Path archivePath = Paths.get(archive).toAbsolutePath();
+            Files.createDirectories(archivePath.getParent());
+            OutputStream stream = new BufferedOutputStream(Files.newOutputStream(archivePath), 64 * 1024);
+            if (jar) {
+                Manifest jarManifest = new Manifest();
+                jarManifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+                this.out = new JarOutputStream(stream, jarManifest);
+            } else {
+                this.out = new ZipOutputStream(stream);
             }
+        }
+
+        @Override
+        synchronized void write(String filePath, byte[] content) throws IOException {
+            String name = entryName(filePath);
+            out.putNextEntry(new ZipEntry(name));
+            out.write(content);
+            out.closeEntry();
+            entries.add(name);
+        }
+
+        @Override
+        synchronized boolean exists(String filePath) {
+            return entries.contains(entryName(filePath));
+        }
 
-            embeddableCode.append("@Embeddable\n");
-            embeddableCode.append("public class ").append(embeddableName).append(" {\n");
+        @Override
+        boolean delete(String filePath) {
+            return false;
+        }
 
-            for (Map<String, Object> field : fields) {
-                String fieldName = (String) field.get("field_name");
-                String fieldType = (String) field.get("field_type");
-                List<String> annotations = (List<String>) field.getOrDefault("field_annotations", new ArrayList<>());
+        @Override
+        String location() {
+            return archive;
+        }
 
-                if ((Boolean) configurationVariables.getOrDefault("jpa_used", true)) {
-                    for (String annotation : annotations) {
-                        embeddableCode.append("    ").append(annotation).append("\n");
+        @Override
+        Reader reader() throws IOException {
+            ZipFile zipFile = new ZipFile(archive);
+            return new Reader() {
+                @Override
+                public byte[] read(String filePath) throws IOException {
+                    ZipEntry entry = zipFile.getEntry(entryName(filePath));
+                    if (entry == null) {
+                        throw new FileNotFoundException(filePath);
+                    }
+                    try (InputStream in = zipFile.getInputStream(entry)) {
+                        return in.readAllBytes();
                     }
                 }
 
-                embeddableCode.append("    private ").append(fieldType).append(" ").append(fieldName).append(";\n\n");
-            }
-
-            embeddableCode.append("}\n");
+                @Override
+                public void close() throws IOException {
+                    zipFile.close();
+                }
+            };
+        }
 
-            String filePath = embeddableOutputDir + "/" + embeddableName + ".java";
-            try {
-                Files.write(Paths.get(filePath), embeddableCode.toString().getBytes());
-            } catch (IOException e) {
-                System.out.println("Error writing embeddable file: " + e.getMessage());
-            }
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
         }
     }
 
-    private static void generateEnums(List<Map<String, Object>> enumClasses, Map<String, Object> configurationVariables) {
-        String outputDir = (String) configurationVariables.getOrDefault("OUT_PUT_DIR", "./generated_classes");
-        String _package = (String) configurationVariables.getOrDefault("model_classes__package", "");
-        String _packagePath = _package.replace(".", "/");
-        String enumOutputDir = outputDir + "/" + _packagePath;
-        new File(enumOutputDir).mkdirs();
+    // Keeps the generated files in memory, keyed by their path relative to OUT_PUT_DIR, for tests and
+    // for programs that embed the generator; nothing is written to disk.
+    static final class MemorySink extends OutputSink {
+        final Map<String, byte[]> files = new ConcurrentSkipListMap<>();
+
+        MemorySink(String outputDir) {
+            super(outputDir);
+        }
 
-        for (Map<String, Object> enumClass : enumClasses) {
-            String enumName = (String) enumClass.get("enum_name");
-            List<String> enumValues = (List<String>) enumClass.get("enum_values");
+        @Override
+        void write(String filePath, byte[] content) {
+            files.put(entryName(filePath), content);
+        }
 
-            StringBuilder enumCode = new StringBuilder();
-            enumCode.append("_package ").append(_package).append(";\n\n");
-            enumCode.append("public enum ").append(enumName).append(" {\n");
+        @Override
+        boolean exists(String filePath) {
+            return files.containsKey(entryName(filePath));
+        }
 
-            String privateField = null;
-            for (String value : enumValues) {
-                if (!(value.contains("(") && value.contains(")"))) {
-                    privateField = value;
-                    break;
+        @Override
+        boolean delete(String filePath) {
+            return files.remove(entryName(filePath)) != null;
+        }
+
+        @Override
+        String location() {
+            return "memory";
+        }
+
+        @Override
+        Reader reader() {
+            return filePath -> {
+                byte[] content = files.get(entryName(filePath));
+                if (content == null) {
+                    throw new FileNotFoundException(filePath);
                 }
-            }
+                return content;
+            };
+        }
+    }
 
-            for (String value : enumValues) {
-                if (value.equals(privateField)) {
-                    continue;
+    // Minimal logic-less template: {{name}} inserts a value, {{#name}}...{{/name}} renders its body for each
+    // element of a list or once for a truthy value, and {{^name}}...{{/name}} renders it for a falsy one.
+    private static final class Template {
+        private static final byte TEXT = 0;
+        private static final byte VALUE = 1;
+        private static final byte SECTION = 2;
+        private static final byte INVERTED_SECTION = 3;
+
+        private final byte[] operations;
+        private final String[] operands;
+        private final int[] sectionEnds;
+        final String source;
+
+        private Template(byte[] operations, String[] operands, int[] sectionEnds, String source) {
+            this.operations = operations;
+            this.operands = operands;
+            this.sectionEnds = sectionEnds;
+            this.source = source;
+        }
+
+        static Template parse(String source) {
+            List<Byte> operations = new ArrayList<>();
+            List<String> operands = new ArrayList<>();
+            List<Integer> sectionEnds = new ArrayList<>();
+            Deque<Integer> openSections = new ArrayDeque<>();
+            int position = 0;
+
+            while (position < source.length()) {
+                int tagStart = source.indexOf("{{", position);
+                if (tagStart < 0) {
+                    tagStart = source.length();
+                }
+                int textEnd = tagStart;
+                int next = tagStart;
+                String tag = null;
+
+                if (tagStart < source.length()) {
+                    int tagEnd = source.indexOf("}}", tagStart);
+                    if (tagEnd < 0) {
+                        throw new IllegalArgumentException("Unclosed tag at offset " + tagStart);
+                    }
+                    tag = source.substring(tagStart + 2, tagEnd).trim();
+                    if (tag.isEmpty()) {
+                        throw new IllegalArgumentException("Empty tag at offset " + tagStart);
+                    }
+                    next = tagEnd + 2;
+
+                    char kind = tag.charAt(0);
+                    if (kind == '#' || kind == '^' || kind == '/') {
+                        int lineStart = source.lastIndexOf('\n', tagStart - 1) + 1;
+                        int lineEnd = source.indexOf('\n', next);
+                        if (lineEnd < 0) {
+                            lineEnd = source.length() - 1;
+                        }
+                        if (lineStart >= position && source.substring(lineStart, tagStart).isBlank() && source.substring(next, lineEnd + 1).isBlank()) {
+                            textEnd = lineStart;
+                            next = lineEnd + 1;
+                        }
+                    }
+                }
+
+                if (textEnd > position) {
+                    operations.add(TEXT);
+                    operands.add(source.substring(position, textEnd));
+                    sectionEnds.add(-1);
+                }
+                position = next;
+                if (tag == null) {
+                    break;
                 }
-                if (value.contains("(") && value.contains(")")) {
-                    enumCode.append("    ").append(value.split("\\(")[0]).append("(").append(value.split("\\(")[1].replace(")", "")).append("),\n");
+
+                char kind = tag.charAt(0);
+                String name = kind == '#' || kind == '^' || kind == '/' ? tag.substring(1).trim() : tag;
+                if (kind == '/') {
+                    if (openSections.isEmpty() || !operands.get(openSections.peek()).equals(name)) {
+                        throw new IllegalArgumentException("Unexpected closing tag {{/" + name + "}}");
+                    }
+                    sectionEnds.set(openSections.pop(), operations.size());
                 } else {
-                    enumCode.append("    ").append(value).append(",\n");
+                    if (kind == '#' || kind == '^') {
+                        openSections.push(operations.size());
+                    }
+                    operations.add(kind == '#' ? SECTION : kind == '^' ? INVERTED_SECTION : VALUE);
+                    operands.add(name);
+                    sectionEnds.add(-1);
                 }
             }
-            enumCode = new StringBuilder(enumCode.toString().replaceAll(",\n$", ";\n\n"));
-
-            if (privateField != null) {
-                enumCode.append("    private final int ").append(privateField).append(";\n\n");
-                enumCode.append("    ").append(enumName).append("(int ").append(privateField).append(") {\n");
-                enumCode.append("        this.").append(privateField).append(" = ").append(privateField).append(";\n");
-                enumCode.append("    }\n");
-            } else if (enumValues.stream().anyMatch(value -> value.contains("(") && value.contains(")"))) {
-                enumCode.append("    private final int value;\n\n");
-                enumCode.append("    ").append(enumName).append("(int value) {\n");
-                enumCode.append("        this.value = value;\n");
-                enumCode.append("    }\n");
+            if (!openSections.isEmpty()) {
+                throw new IllegalArgumentException("Unclosed section {{#" + operands.get(openSections.peek()) + "}}");
             }
 
-            enumCode.append("}\n");
-
-            String filePath = enumOutputDir + "/" + enumName + ".java";
-            try {
-                Files.write(Paths.get(filePath), enumCode.toString().getBytes());
-            } catch (IOException e) {
-                System.out.println("Error writing enum file: " + e.getMessage());
+            byte[] operationArray = new byte[operations.size()];
+            int[] sectionEndArray = new int[sectionEnds.size()];
+            for (int i = 0; i < operationArray.length; i++) {
+                operationArray[i] = operations.get(i);
+                sectionEndArray[i] = sectionEnds.get(i);
             }
+            return new Template(operationArray, operands.toArray(new String[0]), sectionEndArray, source);
         }
-    }
-
-    private static void generateRepositories(List<Map<String, Object>> entities, Map<String, Object> configurationVariables) {
-        String outputDir = (String) configurationVariables.getOrDefault("OUT_PUT_DIR", "./generated_classes");
-        String _package = (String) configurationVariables.getOrDefault("repository_classes__packages", "com.example.repository");
-        String _packagePath = _package.replace(".", "/");
-        String repositoryOutputDir = outputDir + "/" + _packagePath;
-        new File(repositoryOutputDir).mkdirs();
-
-        boolean useSpringData = (Boolean) configurationVariables.getOrDefault("spring_data_used_for_repositories_and_services", false);
-
-        for (Map<String, Object> entity : entities) {
-            String entityName = (String) entity.get("entity_name");
-            String repositoryName = entityName + "Repository";
-            String entityClass = entityName + configurationVariables.get("entity_suffix");
 
-            StringBuilder repositoryCode = new StringBuilder();
-            repositoryCode.append("_package ").append(_package).append(";\n\n");
+        void render(StringBuilder out, List<Object> scopes) {
+            render(out, scopes, 0, operations.length);
+        }
 
-            if (useSpringData) {
-                repositoryCode.append("import org.springframework.data.jpa.repository.JpaRepository;\n");
-                repositoryCode.append("import org.springframework.stereotype.Repository;\n\n");
-                repositoryCode.append("@Repository\n");
-                repositoryCode.append("public interface ").append(repositoryName).append(" extends JpaRepository<").append(entityClass).append(", Long> {\n");
-                repositoryCode.append("}\n");
-            } else {
-                repositoryCode.append("import jakarta.persistence.EntityManager;\n");
-                repositoryCode.append("import jakarta.persistence.PersistenceContext;\n");
-                repositoryCode.append("import jakarta.persistence.TypedQuery;\n");
-                repositoryCode.append("import java.util.List;\n\n");
-                repositoryCode.append("public class ").append(repositoryName).append(" {\n\n");
-                repositoryCode.append("    @PersistenceContext\n");
-                repositoryCode.append("    private EntityManager entityManager;\n\n");
-                repositoryCode.append("    public List<").append(entityClass).append("> findAll() {\n");
-                repositoryCode.append("        TypedQuery<").append(entityClass).append("> query = entityManager.createQuery(\"SELECT e FROM ").append(entityClass).append(" e\", ").append(entityClass).append(".class);\n");
-                repositoryCode.append("        return query.getResultList();\n");
-                repositoryCode.append("    }\n\n");
-                repositoryCode.append("    public ").append(entityClass).append(" findById(Long id) {\n");
-                repositoryCode.append("        return entityManager.find(").append(entityClass).append(".class, id);\n");
-                repositoryCode.append("    }\n\n");
-                repositoryCode.append("    public void save(").append(entityClass).append(" entity) {\n");
-                repositoryCode.append("        entityManager.persist(entity);\n");
-                repositoryCode.append("    }\n\n");
-                repositoryCode.append("    public void update(").append(entityClass).append(" entity) {\n");
-                repositoryCode.append("        entityManager.merge(entity);\n");
-                repositoryCode.append("    }\n\n");
-                repositoryCode.append("    public void delete(Long id) {\n");
-                repositoryCode.append("        ").append(entityClass).append(" entity = findById(id);\n");
-                repositoryCode.append("        if (entity != null) {\n");
-                repositoryCode.append("            entityManager.remove(entity);\n");
-                repositoryCode.append("        }\n");
-                repositoryCode.append("    }\n");
-                repositoryCode.append("}\n");
-            }
-
-            String filePath = repositoryOutputDir + "/" + repositoryName + ".java";
-            try {
-                Files.write(Paths.get(filePath), repositoryCode.toString().getBytes());
-            } catch (IOException e) {
-                System.out.println("Error writing repository file: " + e.getMessage());
+        private void render(StringBuilder out, List<Object> scopes, int from, int to) {
+            int i = from;
+            while (i < to) {
+                byte operation = operations[i];
+                if (operation == TEXT) {
+                    out.append(operands[i]);
+                    i++;
+                } else if (operation == VALUE) {
+                    Object value = lookup(scopes, operands[i]);
+                    if (value instanceof CharSequence) {
+                        out.append((CharSequence) value);
+                    } else if (value != null) {
+                        out.append(value);
+                    }
+                    i++;
+                } else {
+                    Object value = lookup(scopes, operands[i]);
+                    boolean present = value != null && !Boolean.FALSE.equals(value) && !(value instanceof Collection && ((Collection<?>) value).isEmpty());
+                    if (operation == INVERTED_SECTION) {
+                        if (!present) {
+                            render(out, scopes, i + 1, sectionEnds[i]);
+                        }
+                    } else if (value instanceof Collection) {
+                        for (Object element : (Collection<?>) value) {
+                            scopes.add(element);
+                            render(out, scopes, i + 1, sectionEnds[i]);
+                            scopes.remove(scopes.size() - 1);
+                        }
+                    } else if (value instanceof Boolean) {
+                        if (present) {
+                            render(out, scopes, i + 1, sectionEnds[i]);
+                        }
+                    } else if (present) {
+                        scopes.add(value);
+                        render(out, scopes, i + 1, sectionEnds[i]);
+                        scopes.remove(scopes.size() - 1);
+                    }
+                    i = sectionEnds[i];
+                }
             }
         }
 
-        System.out.println("\t📚 " + entities.size() + " repositories generated successfully.");
+        private static Object lookup(List<Object> scopes, String name) {
+            if (name.equals(".")) {
+                return scopes.get(scopes.size() - 1);
+            }
+            for (int i = scopes.size() - 1; i >= 0; i--) {
+                Object scope = scopes.get(i);
+                if (scope instanceof Map && ((Map<?, ?>) scope).containsKey(name)) {
+                    return ((Map<?, ?>) scope).get(name);
+                }
+            }
+            return null;
+        }
     }
 
-    private static void generateServices(List<Map<String, Object>> entities, Map<String, Object> configurationVariables) {
-        String outputDir = (String) configurationVariables.getOrDefault("OUT_PUT_DIR", "./generated_classes");
-        String _package = (String) configurationVariables.getOrDefault("service_classes__packages", "com.example.service");
-        String _packagePath = _package.replace(".", "/");
-        String serviceOutputDir = outputDir + "/" + _packagePath;
-        new File(serviceOutputDir).mkdirs();
-
-        boolean useSpringData = (Boolean) configurationVariables.getOrDefault("spring_data_used_for_repositories_and_services", false);
-
-        for (Map<String, Object> entity : entities) {
-            String entityName = (String) entity.get("entity_name");
-            String serviceName = entityName + "Service";
-            String repositoryName = entityName + "Repository";
-            String repository_package = (String) configurationVariables.getOrDefault("repository_classes__packages", "com.example.repository");
-
-            StringBuilder serviceCode = new StringBuilder();
-            serviceCode.append("_package ").append(_package).append(";\n\n");
-            serviceCode.append("import org.springframework.beans.factory.annotation.Autowired;\n");
-            serviceCode.append("import org.springframework.stereotype.Service;\n");
-            serviceCode.append("import ").append(repository_package).append(".").append(repositoryName).append(";\n\n");
-            serviceCode.append("@Service\n");
-            serviceCode.append("public class ").append(serviceName).append(" {\n\n");
-            serviceCode.append("    @Autowired\n");
-            serviceCode.append("    private ").append(repositoryName).append(" ").append(repositoryName.substring(0, 1).toLowerCase()).append(repositoryName.substring(1)).append(";\n\n");
+    // Built-in templates of every generated file, compiled once per run. A file named "<template>.tpl" in
+    // "templates_directory" replaces the built-in template of the same name.
+    private static final class Templates {
+        private static final String EXTENSION = ".tpl";
+        private static final int BUFFER_SIZE = 16 * 1024;
+        private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+        private static final Map<String, String> BUILT_IN = Map.ofEntries(
+                Map.entry("model-class", """
+                    {{#modelPackage}}
+                    package {{modelPackage}};
+
+                    {{/modelPackage}}
+                    {{#jpaUsed}}
+                    import {{persistencePackage}}.*;
+
+                    {{/jpaUsed}}
+                    {{#hibernateAnnotationsUsed}}
+                    {{#batchSizeUsed}}
+                    import org.hibernate.annotations.BatchSize;
+                    {{/batchSizeUsed}}
+                    {{#cacheUsed}}
+                    import org.hibernate.annotations.Cache;
+                    import org.hibernate.annotations.CacheConcurrencyStrategy;
+                    {{/cacheUsed}}
+                    {{#naturalIdUsed}}
+                    import org.hibernate.annotations.NaturalId;
+                    {{/naturalIdUsed}}
+
+                    {{/hibernateAnnotationsUsed}}
+                    {{#serializableModels}}
+                    import java.io.Serializable;
+
+                    {{/serializableModels}}
+                    {{#objectsUsed}}
+                    import java.util.Objects;
+
+                    {{/objectsUsed}}
+                    {{#lombokUsed}}
+                    import lombok.*;
+
+                    {{/lombokUsed}}
+                    {{#classAnnotations}}
+                    {{.}}
+                    {{/classAnnotations}}
+                    {{typeAnnotations}}{{declaration}} {
+                    {{#fields}}
+                    {{annotations}}    private {{type}} {{name}};
+
+                    {{/fields}}
+                    {{#constructors}}
+                        // Constructors
+                        public {{className}}() {
+                        }
+                        public {{className}}({{parameters}}) {
+                    {{#fields}}
+                            this.{{name}} = {{name}};
+                    {{/fields}}
+                        }
+                    {{/constructors}}
+                    {{#gettersSetters}}
+                        // Getters and setters
+                    {{#fields}}
+                        public {{type}} get{{camelName}}() {
+                            return {{name}};
+                        }
+                        public void set{{camelName}}({{type}} {{name}}) {
+                            this.{{name}} = {{name}};
+                        }
+                    {{/fields}}
+                    {{/gettersSetters}}
+                    {{#standardMethods}}
+                        // hashCode(), equals(), toString()
+                    {{#identityEquality}}
+                    {{#naturalKeyUsed}}
+                        // Entities with the same natural key are equal, before and after they are persisted.
+                        @Override
+                        public int hashCode() {
+                            return Objects.hash({{naturalKeyHash}});
+                        }
+                        @Override
+                        public boolean equals(Object obj) {
+                            if (this == obj) return true;
+                            if (!(obj instanceof {{className}})) return false;
+                            {{className}} that = ({{className}}) obj;
+                            return {{naturalKeyEquals}};
+                        }
+                    {{/naturalKeyUsed}}
+                    {{^naturalKeyUsed}}
+                    {{#identityAccessor}}
+                        // Entities with the same id are equal; a new entity is only equal to itself.
+                        @Override
+                        public int hashCode() {
+                            return {{className}}.class.hashCode();
+                        }
+                        @Override
+                        public boolean equals(Object obj) {
+                            if (this == obj) return true;
+                            if (!(obj instanceof {{className}})) return false;
+                            {{className}} that = ({{className}}) obj;
+                            return {{identityAccessor}} != null && {{identityAccessor}}.equals(that.{{identityAccessor}});
+                        }
+                    {{/identityAccessor}}
+                    {{/naturalKeyUsed}}
+                    {{/identityEquality}}
+                    {{^identityEquality}}
+                        @Override
+                        public int hashCode() {
+                    {{#firstField}}
+                            return {{name}}.hashCode();
+                    {{/firstField}}
+                    {{^firstField}}
+                            return super.hashCode();
+                    {{/firstField}}
+                        }
+                        @Override
+                        public boolean equals(Object obj) {
+                            if (this == obj) return true;
+                            if (obj == null || getClass() != obj.getClass()) return false;
+                            {{name}} that = ({{name}}) obj;
+                    {{#firstField}}
+                            return {{name}}.equals(that.{{name}});
+                    {{/firstField}}
+                    {{^firstField}}
+                            return super.equals(obj);
+                    {{/firstField}}
+                        }
+                    {{/identityEquality}}
+                        @Override
+                        public String toString() {
+                            return "{{name}}{" +
+                    {{#toStringFields}}
+                                    "{{name}}='" + String.valueOf({{name}}) + '\\'' +
+                    {{/toStringFields}}
+                                    '}';
+                        }
+                    {{/standardMethods}}
+                    }
+                    """),
+                Map.entry("interface", """
+                    _package {{package}};
+
+                    public interface {{name}} {
+                    {{#methods}}
+                        {{.}};
+                    {{/methods}}
+                    }
+                    """),
+                Map.entry("embeddable", """
+                    _package {{package}};
+
+                    {{#jpaUsed}}
+                    import {{persistencePackage}}.*;
+
+                    {{/jpaUsed}}
+                    @Embeddable
+                    public class {{name}} {
+                    {{#fields}}
+                    {{#annotations}}
+                        {{.}}
+                    {{/annotations}}
+                        private {{type}} {{name}};
+
+                    {{/fields}}
+                    }
+                    """),
+                Map.entry("enum", """
+                    _package {{package}};
+
+                    public enum {{name}} {
+                    {{#constants}}
+                        {{constant}}{{terminator}}
+                    {{/constants}}
+                    {{#privateField}}
+                        private final int {{.}};
+
+                        {{name}}(int {{.}}) {
+                            this.{{.}} = {{.}};
+                        }
+                    {{/privateField}}
+                    {{#valueField}}
+                        private final int value;
+
+                        {{name}}(int value) {
+                            this.value = value;
+                        }
+                    {{/valueField}}
+                    }
+                    """),
+                Map.entry("repository", """
+                    _package {{repositoryPackage}};
+
+                    {{#springDataUsed}}
+                    {{#cacheUsed}}
+                    import org.springframework.data.domain.Page;
+                    {{/cacheUsed}}
+                    import org.springframework.data.domain.Pageable;
+                    {{#fetchGraphsUsed}}
+                    import org.springframework.data.jpa.repository.EntityGraph;
+                    {{/fetchGraphsUsed}}
+                    import org.springframework.data.jpa.repository.JpaRepository;
+                    {{#bulkOperations}}
+                    import org.springframework.data.jpa.repository.Modifying;
+                    {{/bulkOperations}}
+                    import org.springframework.data.jpa.repository.Query;
+                    {{#queryHintsUsed}}
+                    import org.springframework.data.jpa.repository.QueryHints;
+                    {{/queryHintsUsed}}
+                    import org.springframework.data.repository.query.Param;
+                    import org.springframework.stereotype.Repository;
+                    import java.util.List;
+                    {{#optionalUsed}}
+                    import java.util.Optional;
+                    {{/optionalUsed}}
+                    {{#streamingExport}}
+                    import java.util.stream.Stream;
+                    {{/streamingExport}}
+                    {{#fieldTypeImports}}
+                    import {{.}};
+                    {{/fieldTypeImports}}
+                    {{#idTypeImport}}
+                    import {{idTypeImport}};
+                    {{/idTypeImport}}
+                    {{#queryHintsUsed}}
+                    import {{persistencePackage}}.QueryHint;
+                    {{/queryHintsUsed}}
+                    {{#projections}}
+                    import {{projectionPackage}}.{{projectionName}};
+                    {{/projections}}
+
+                    @Repository
+                    public interface {{repositoryName}} extends JpaRepository<{{className}}, Long> {
+
+                        // Keyset pagination: the page starts after the last id of the previous one.
+                        @Query("SELECT e FROM {{className}} e WHERE e.{{idField}} > :afterId ORDER BY e.{{idField}}")
+                    {{#cacheUsed}}
+                        @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+                    {{/cacheUsed}}
+                        List<{{className}}> findPageAfter(@Param("afterId") {{idType}} afterId, Pageable pageable);
+
+                        @Query("SELECT e FROM {{className}} e ORDER BY e.{{idField}}")
+                    {{#cacheUsed}}
+                        @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+                    {{/cacheUsed}}
+                        List<{{className}}> findFirstPage(Pageable pageable);
+                    {{#cacheUsed}}
+
+                        // The results of the inherited queries are kept in the query cache as well.
+                        @Override
+                        @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+                        List<{{className}}> findAll();
+
+                        @Override
+                        @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+                        Page<{{className}}> findAll(Pageable pageable);
+                    {{/cacheUsed}}
+                    {{#streamingExport}}
+
+                        // Reads the whole table through a read-only database cursor, within a transaction, for the exports.
+                        @Query("SELECT e FROM {{className}} e ORDER BY e.{{idField}}")
+                        @QueryHints({
+                                @QueryHint(name = "org.hibernate.fetchSize", value = "{{exportFetchSize}}"),
+                                @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+                        Stream<{{className}}> streamAll();
+                    {{/streamingExport}}
+                    {{#projections}}
+
+                        // Selects only the columns of {{projectionName}}, without loading the entities.
+                        @Query("SELECT new {{projectionPackage}}.{{projectionName}}({{projectionSelection}}) FROM {{className}} e ORDER BY e.{{idField}}")
+                        List<{{projectionName}}> {{projectionMethod}}(Pageable pageable);
+                    {{/projections}}
+                    {{#fetchGraphs}}
+
+                        // Loads the entity and its {{attribute}} in one query.
+                        @EntityGraph(attributePaths = "{{attribute}}")
+                        @Query("SELECT e FROM {{className}} e WHERE e.{{idField}} = :id")
+                        Optional<{{className}}> {{method}}(@Param("id") Long id);
+                    {{/fetchGraphs}}
+                    {{#finders}}
+
+                        // Reads through the index {{indexName}}.
+                    {{#finderUnique}}
+                        Optional<{{className}}> {{finderMethod}}({{finderParameters}});
+                    {{/finderUnique}}
+                    {{^finderUnique}}
+                        List<{{className}}> {{finderMethod}}({{finderParameters}}, Pageable pageable);
+                    {{/finderUnique}}
+                    {{/finders}}
+                    {{#bulkOperations}}
+
+                        // Bulk operations: one statement, without loading the entities.
+                        @Modifying(flushAutomatically = true, clearAutomatically = true)
+                        @Query("DELETE FROM {{className}} e WHERE e.{{idField}} IN :ids")
+                        int bulkDeleteByIds(@Param("ids") List<Long> ids);
+                    {{#finders}}
+
+                        @Modifying(flushAutomatically = true, clearAutomatically = true)
+                        @Query("DELETE FROM {{className}} e WHERE {{finderCondition}}")
+                        int {{bulkDeleteMethod}}({{finderQueryParameters}});
+                    {{/finders}}
+                    {{#bulkUpdates}}
+
+                        @Modifying(flushAutomatically = true, clearAutomatically = true)
+                        @Query("UPDATE {{className}} e SET e.{{name}} = :value WHERE e.{{idField}} IN :ids")
+                        int {{bulkUpdateMethod}}(@Param("ids") List<Long> ids, @Param("value") {{type}} value);
+                    {{/bulkUpdates}}
+                    {{/bulkOperations}}
+                    }
+                    {{/springDataUsed}}
+                    {{^springDataUsed}}
+                    import jakarta.persistence.EntityManager;
+                    import jakarta.persistence.PersistenceContext;
+                    {{#bulkOperations}}
+                    import jakarta.persistence.Query;
+                    {{/bulkOperations}}
+                    import jakarta.persistence.TypedQuery;
+                    import java.util.List;
+                    {{#streamingExport}}
+                    import java.util.stream.Stream;
+                    {{/streamingExport}}
+                    {{#fieldTypeImports}}
+                    import {{.}};
+                    {{/fieldTypeImports}}
+                    {{#idTypeImport}}
+                    import {{idTypeImport}};
+                    {{/idTypeImport}}
+                    {{#projections}}
+                    import {{projectionPackage}}.{{projectionName}};
+                    {{/projections}}
+
+                    public class {{repositoryName}} {
+
+                        @PersistenceContext
+                        private EntityManager entityManager;
+                    {{#unboundedFindAll}}
+
+                        public List<{{className}}> findAll() {
+                            TypedQuery<{{className}}> query = entityManager.createQuery("SELECT e FROM {{className}} e", {{className}}.class);
+                    {{#cacheUsed}}
+                            query.setHint("org.hibernate.cacheable", true);
+                    {{/cacheUsed}}
+                            return query.getResultList();
+                        }
+                    {{/unboundedFindAll}}
+
+                        public List<{{className}}> findPage(int page, int size) {
+                            TypedQuery<{{className}}> query = entityManager.createQuery("SELECT e FROM {{className}} e ORDER BY e.{{idField}}", {{className}}.class);
+                            query.setFirstResult(page * size);
+                            query.setMaxResults(size);
+                    {{#cacheUsed}}
+                            query.setHint("org.hibernate.cacheable", true);
+                    {{/cacheUsed}}
+                            return query.getResultList();
+                        }
+
+                        // Keyset pagination: the page starts after the last id of the previous one.
+                        public List<{{className}}> findPageAfter({{idType}} afterId, int size) {
+                            TypedQuery<{{className}}> query = entityManager.createQuery("SELECT e FROM {{className}} e WHERE e.{{idField}} > :afterId ORDER BY e.{{idField}}", {{className}}.class);
+                            query.setParameter("afterId", afterId);
+                            query.setMaxResults(size);
+                    {{#cacheUsed}}
+                            query.setHint("org.hibernate.cacheable", true);
+                    {{/cacheUsed}}
+                            return query.getResultList();
+                        }
+
+                        public List<{{className}}> findFirstPage(int size) {
+                            TypedQuery<{{className}}> query = entityManager.createQuery("SELECT e FROM {{className}} e ORDER BY e.{{idField}}", {{className}}.class);
+                            query.setMaxResults(size);
+                    {{#cacheUsed}}
+                            query.setHint("org.hibernate.cacheable", true);
+                    {{/cacheUsed}}
+                            return query.getResultList();
+                        }
+                    {{#streamingExport}}
+
+                        // Reads the whole table through a read-only database cursor, within a transaction, for the exports.
+                        public Stream<{{className}}> streamAll() {
+                            TypedQuery<{{className}}> query = entityManager.createQuery("SELECT e FROM {{className}} e ORDER BY e.{{idField}}", {{className}}.class);
+                            query.setHint("org.hibernate.fetchSize", {{exportFetchSize}});
+                            query.setHint("org.hibernate.readOnly", true);
+                            return query.getResultStream();
+                        }
+
+                        // Removes an exported entity from the persistence context.
+                        public void detach({{className}} entity) {
+                            entityManager.detach(entity);
+                        }
+                    {{/streamingExport}}
+                    {{#projections}}
+
+                        // Selects only the columns of {{projectionName}}, without loading the entities.
+                        public List<{{projectionName}}> {{projectionMethod}}(int page, int size) {
+                            TypedQuery<{{projectionName}}> query = entityManager.createQuery("SELECT new {{projectionPackage}}.{{projectionName}}({{projectionSelection}}) FROM {{className}} e ORDER BY e.{{idField}}", {{projectionName}}.class);
+                            query.setFirstResult(page * size);
+                            query.setMaxResults(size);
+                            return query.getResultList();
+                        }
+                    {{/projections}}
+
+                        public {{className}} findById(Long id) {
+                            return entityManager.find({{className}}.class, id);
+                        }
+                    {{#fetchGraphs}}
+
+                        // Loads the entity and its {{attribute}} in one query.
+                        public {{className}} {{method}}(Long id) {
+                            TypedQuery<{{className}}> query = entityManager.createQuery("SELECT DISTINCT e FROM {{className}} e LEFT JOIN FETCH e.{{attribute}} WHERE e.{{idField}} = :id", {{className}}.class);
+                            query.setParameter("id", id);
+                            List<{{className}}> result = query.getResultList();
+                            return result.isEmpty() ? null : result.get(0);
+                        }
+                    {{/fetchGraphs}}
+                    {{#finders}}
+
+                        // Reads through the index {{indexName}}.
+                    {{#finderUnique}}
+                        public {{className}} {{finderMethod}}({{finderParameters}}) {
+                            TypedQuery<{{className}}> query = entityManager.createQuery("SELECT e FROM {{className}} e WHERE {{finderCondition}}", {{className}}.class);
+                    {{#finderFields}}
+                            query.setParameter("{{.}}", {{.}});
+                    {{/finderFields}}
+                            List<{{className}}> result = query.getResultList();
+                            return result.isEmpty() ? null : result.get(0);
+                        }
+                    {{/finderUnique}}
+                    {{^finderUnique}}
+                        public List<{{className}}> {{finderMethod}}({{finderParameters}}, int page, int size) {
+                            TypedQuery<{{className}}> query = entityManager.createQuery("SELECT e FROM {{className}} e WHERE {{finderCondition}} ORDER BY e.{{idField}}", {{className}}.class);
+                    {{#finderFields}}
+                            query.setParameter("{{.}}", {{.}});
+                    {{/finderFields}}
+                            query.setFirstResult(page * size);
+                            query.setMaxResults(size);
+                            return query.getResultList();
+                        }
+                    {{/finderUnique}}
+                    {{/finders}}
+
+                        public void save({{className}} entity) {
+                            entityManager.persist(entity);
+                        }
+
+                        public void update({{className}} entity) {
+                            entityManager.merge(entity);
+                        }
+
+                        public void delete(Long id) {
+                            {{className}} entity = findById(id);
+                            if (entity != null) {
+                                entityManager.remove(entity);
+                            }
+                        }
+                    {{#bulkOperations}}
+
+                        // Bulk operations: one statement, without loading the entities.
+                        public int bulkDeleteByIds(List<Long> ids) {
+                            entityManager.flush();
+                            Query query = entityManager.createQuery("DELETE FROM {{className}} e WHERE e.{{idField}} IN :ids");
+                            query.setParameter("ids", ids);
+                            int deleted = query.executeUpdate();
+                            entityManager.clear();
+                            return deleted;
+                        }
+                    {{#finders}}
+
+                        public int {{bulkDeleteMethod}}({{finderParameters}}) {
+                            entityManager.flush();
+                            Query query = entityManager.createQuery("DELETE FROM {{className}} e WHERE {{finderCondition}}");
+                    {{#finderFields}}
+                            query.setParameter("{{.}}", {{.}});
+                    {{/finderFields}}
+                            int deleted = query.executeUpdate();
+                            entityManager.clear();
+                            return deleted;
+                        }
+                    {{/finders}}
+                    {{#bulkUpdates}}
+
+                        public int {{bulkUpdateMethod}}(List<Long> ids, {{type}} value) {
+                            entityManager.flush();
+                            Query query = entityManager.createQuery("UPDATE {{className}} e SET e.{{name}} = :value WHERE e.{{idField}} IN :ids");
+                            query.setParameter("value", value);
+                            query.setParameter("ids", ids);
+                            int updated = query.executeUpdate();
+                            entityManager.clear();
+                            return updated;
+                        }
+                    {{/bulkUpdates}}
+                    {{/bulkOperations}}
+                    {{#highThroughputPersistence}}
+
+                        // Persists the entities, flushing and clearing the persistence context every batchSize entities.
+                        public List<{{className}}> saveAllInBatches(List<{{className}}> entities, int batchSize) {
+                            for (int i = 0; i < entities.size(); i++) {
+                                entityManager.persist(entities.get(i));
+                                if ((i + 1) % batchSize == 0) {
+                                    entityManager.flush();
+                                    entityManager.clear();
+                                }
+                            }
+                            entityManager.flush();
+                            entityManager.clear();
+                            return entities;
+                        }
+                    {{/highThroughputPersistence}}
+                    }
+                    {{/springDataUsed}}
+                    """),
+                Map.entry("service", """
+                    _package {{servicePackage}};
+
+                    import org.springframework.beans.factory.annotation.Autowired;
+                    import org.springframework.stereotype.Service;
+                    import {{repositoryPackage}}.{{repositoryName}};
+                    {{#asyncServices}}
+                    import org.springframework.scheduling.annotation.Async;
+                    {{/asyncServices}}
+                    {{#springDataUsed}}
+                    import org.springframework.data.domain.Page;
+                    import org.springframework.data.domain.PageRequest;
+                    import org.springframework.data.domain.Sort;
+                    {{/springDataUsed}}
+                    {{#transactionsUsed}}
+                    import org.springframework.transaction.annotation.Transactional;
+                    {{/transactionsUsed}}
+                    {{#entityManagerUsed}}
+                    {{#springDataUsed}}
+                    import {{persistencePackage}}.EntityManager;
+                    import {{persistencePackage}}.PersistenceContext;
+                    {{/springDataUsed}}
+                    {{/entityManagerUsed}}
+                    {{#highThroughputPersistence}}
+                    {{#springDataUsed}}
+                    import java.util.ArrayList;
+                    {{/springDataUsed}}
+                    {{/highThroughputPersistence}}
+                    import java.util.List;
+                    {{#asyncServices}}
+                    import java.util.concurrent.CompletableFuture;
+                    {{/asyncServices}}
+                    {{#streamingExport}}
+                    import java.util.function.Consumer;
+                    import java.util.stream.Stream;
+                    {{/streamingExport}}
+                    {{#fieldTypeImports}}
+                    import {{.}};
+                    {{/fieldTypeImports}}
+                    {{#idTypeImport}}
+                    import {{idTypeImport}};
+                    {{/idTypeImport}}
+                    {{#modelPackage}}
+                    import {{modelPackage}}.{{className}};
+                    {{/modelPackage}}
+                    {{#projections}}
+                    import {{projectionPackage}}.{{projectionName}};
+                    {{/projections}}
+
+                    @Service
+                    public class {{serviceName}} {
+
+                        // The largest page a client can request, so that no request loads a whole table.
+                        private static final int MAX_PAGE_SIZE = {{maxPageSize}};
+                    {{#highThroughputPersistence}}
+
+                        // Entities saved between two flushes, the hibernate.jdbc.batch_size of application-prod.properties.
+                        private static final int BATCH_SIZE = {{jdbcBatchSize}};
+                    {{/highThroughputPersistence}}
+                    {{#bulkOperations}}
+
+                        // Ids per bulk statement, below the limits of the databases on the size of an IN list.
+                        private static final int BULK_CHUNK_SIZE = 1000;
+                    {{/bulkOperations}}
+
+                        @Autowired
+                        private {{repositoryName}} {{repositoryField}};
+                    {{#entityManagerUsed}}
+                    {{#springDataUsed}}
+
+                        @PersistenceContext
+                        private EntityManager entityManager;
+                    {{/springDataUsed}}
+                    {{/entityManagerUsed}}
+
+                    {{#unboundedFindAll}}
+                    {{#springDataUsed}}
+                        // Example method using Spring Data JPA
+                    {{/springDataUsed}}
+                    {{^springDataUsed}}
+                        // Example method using pure JPA
+                    {{/springDataUsed}}
+                        public List<{{name}}> findAll() {
+                            return {{repositoryField}}.findAll();
+                        }
+
+                    {{/unboundedFindAll}}
+                    {{#springDataUsed}}
+                    {{#readReplicaRouting}}
+                        @Transactional(readOnly = true)
+                    {{/readReplicaRouting}}
+                        public Page<{{className}}> findPage(int page, int size) {
+                            return {{repositoryField}}.findAll(PageRequest.of(Math.max(page, 0), pageSize(size), Sort.by("{{idField}}")));
+                        }
+
+                        // Without afterId, returns the first page.
+                    {{#readReplicaRouting}}
+                        @Transactional(readOnly = true)
+                    {{/readReplicaRouting}}
+                        public List<{{className}}> findPageAfter({{idType}} afterId, int size) {
+                            if (afterId == null) {
+                                return {{repositoryField}}.findFirstPage(PageRequest.of(0, pageSize(size)));
+                            }
+                            return {{repositoryField}}.findPageAfter(afterId, PageRequest.of(0, pageSize(size)));
+                        }
+                    {{#projections}}
+
+                    {{#readReplicaRouting}}
+                        @Transactional(readOnly = true)
+                    {{/readReplicaRouting}}
+                        public List<{{projectionName}}> {{projectionMethod}}(int page, int size) {
+                            return {{repositoryField}}.{{projectionMethod}}(PageRequest.of(Math.max(page, 0), pageSize(size)));
+                        }
+                    {{/projections}}
+                    {{/springDataUsed}}
+                    {{^springDataUsed}}
+                    {{#readReplicaRouting}}
+                        @Transactional(readOnly = true)
+                    {{/readReplicaRouting}}
+                        public List<{{className}}> findPage(int page, int size) {
+                            return {{repositoryField}}.findPage(Math.max(page, 0), pageSize(size));
+                        }
+
+                        // Without afterId, returns the first page.
+                    {{#readReplicaRouting}}
+                        @Transactional(readOnly = true)
+                    {{/readReplicaRouting}}
+                        public List<{{className}}> findPageAfter({{idType}} afterId, int size) {
+                            if (afterId == null) {
+                                return {{repositoryField}}.findFirstPage(pageSize(size));
+                            }
+                            return {{repositoryField}}.findPageAfter(afterId, pageSize(size));
+                        }
+                    {{#projections}}
+
+                    {{#readReplicaRouting}}
+                        @Transactional(readOnly = true)
+                    {{/readReplicaRouting}}
+                        public List<{{projectionName}}> {{projectionMethod}}(int page, int size) {
+                            return {{repositoryField}}.{{projectionMethod}}(Math.max(page, 0), pageSize(size));
+                        }
+                    {{/projections}}
+                    {{/springDataUsed}}
+                    {{#asyncServices}}
+
+                        // Asynchronous variants for the controllers, each in its own read-only transaction.
+                        @Transactional(readOnly = true)
+                        @Async
+                        public CompletableFuture<{{#springDataUsed}}Page{{/springDataUsed}}{{^springDataUsed}}List{{/springDataUsed}}<{{className}}>> findPageAsync(int page, int size) {
+                            return CompletableFuture.completedFuture(findPage(page, size));
+                        }
+
+                        @Transactional(readOnly = true)
+                        @Async
+                        public CompletableFuture<List<{{className}}>> findPageAfterAsync({{idType}} afterId, int size) {
+                            return CompletableFuture.completedFuture(findPageAfter(afterId, size));
+                        }
+                    {{#projections}}
+
+                        @Transactional(readOnly = true)
+                        @Async
+                        public CompletableFuture<List<{{projectionName}}>> {{projectionMethod}}Async(int page, int size) {
+                            return CompletableFuture.completedFuture({{projectionMethod}}(page, size));
+                        }
+                    {{/projections}}
+                    {{/asyncServices}}
+
+                    {{#streamingExport}}
+                        // Passes each entity of the table to the action, detached once handled.
+                        @Transactional(readOnly = true)
+                        public void exportAll(Consumer<{{className}}> action) {
+                            try (Stream<{{className}}> entities = {{repositoryField}}.streamAll()) {
+                                entities.forEach(entity -> {
+                                    action.accept(entity);
+                    {{#springDataUsed}}
+                                    entityManager.detach(entity);
+                    {{/springDataUsed}}
+                    {{^springDataUsed}}
+                                    {{repositoryField}}.detach(entity);
+                    {{/springDataUsed}}
+                                });
+                            }
+                        }
+
+                    {{/streamingExport}}
+                    {{#highThroughputPersistence}}
+                        // Saves the entities in JDBC batches of BATCH_SIZE.
+                        @Transactional
+                        public List<{{className}}> saveAllInBatches(List<{{className}}> entities) {
+                    {{#springDataUsed}}
+                            List<{{className}}> saved = new ArrayList<>(entities.size());
+                            for (int start = 0; start < entities.size(); start += BATCH_SIZE) {
+                                saved.addAll({{repositoryField}}.saveAll(entities.subList(start, Math.min(start + BATCH_SIZE, entities.size()))));
+                                {{repositoryField}}.flush();
+                                entityManager.clear();
+                            }
+                            return saved;
+                    {{/springDataUsed}}
+                    {{^springDataUsed}}
+                            return {{repositoryField}}.saveAllInBatches(entities, BATCH_SIZE);
+                    {{/springDataUsed}}
+                        }
+
+                    {{/highThroughputPersistence}}
+                    {{#bulkOperations}}
+                        // Bulk operations: one statement per BULK_CHUNK_SIZE ids, without cascades nor entity callbacks.
+                        @Transactional
+                        public int bulkDeleteByIds(List<Long> ids) {
+                            int deleted = 0;
+                            for (int start = 0; start < ids.size(); start += BULK_CHUNK_SIZE) {
+                                deleted += {{repositoryField}}.bulkDeleteByIds(ids.subList(start, Math.min(start + BULK_CHUNK_SIZE, ids.size())));
+                            }
+                            return deleted;
+                        }
+                    {{#finders}}
+
+                        @Transactional
+                        public int {{bulkDeleteMethod}}({{finderParameters}}) {
+                            return {{repositoryField}}.{{bulkDeleteMethod}}({{finderArguments}});
+                        }
+                    {{/finders}}
+                    {{#bulkUpdates}}
+
+                        @Transactional
+                        public int {{bulkUpdateMethod}}(List<Long> ids, {{type}} value) {
+                            int updated = 0;
+                            for (int start = 0; start < ids.size(); start += BULK_CHUNK_SIZE) {
+                                updated += {{repositoryField}}.{{bulkUpdateMethod}}(ids.subList(start, Math.min(start + BULK_CHUNK_SIZE, ids.size())), value);
+                            }
+                            return updated;
+                        }
+                    {{/bulkUpdates}}
+
+                    {{/bulkOperations}}
+                        private static int pageSize(int size) {
+                            return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+                        }
+                    }
+                    """),
+                Map.entry("controller", """
+                    _package {{controllerPackage}};
+
+                    import org.springframework.beans.factory.annotation.Autowired;
+                    {{#springDataUsed}}
+                    import org.springframework.data.domain.Page;
+                    {{/springDataUsed}}
+                    {{#exportUsed}}
+                    import com.fasterxml.jackson.databind.ObjectMapper;
+                    import org.springframework.http.MediaType;
+                    import org.springframework.http.ResponseEntity;
+                    import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+                    {{/exportUsed}}
+                    import org.springframework.web.bind.annotation.*;
+                    import {{servicePackage}}.{{serviceName}};
+                    {{#exportUsed}}
+                    import java.io.BufferedOutputStream;
+                    import java.io.BufferedWriter;
+                    import java.io.IOException;
+                    import java.io.OutputStream;
+                    import java.io.OutputStreamWriter;
+                    import java.io.UncheckedIOException;
+                    import java.io.Writer;
+                    import java.nio.charset.StandardCharsets;
+                    import java.util.LinkedHashMap;
+                    {{/exportUsed}}
+                    import java.util.List;
+                    {{#exportUsed}}
+                    import java.util.Map;
+                    {{/exportUsed}}
+                    {{#idTypeImport}}
+                    import {{idTypeImport}};
+                    {{/idTypeImport}}
+                    {{#asyncServices}}
+                    import java.util.concurrent.CompletableFuture;
+                    {{/asyncServices}}
+                    {{#modelPackage}}
+                    import {{modelPackage}}.{{className}};
+                    {{/modelPackage}}
+                    {{#projections}}
+                    {{#projectionEndpoint}}
+                    import {{projectionPackage}}.{{projectionName}};
+                    {{/projectionEndpoint}}
+                    {{/projections}}
+
+                    @RestController
+                    @RequestMapping("/api/{{resourcePath}}")
+                    public class {{controllerName}} {
+                    {{#exportUsed}}
+
+                        // Bytes buffered before they are sent to the client as one chunk of the export.
+                        private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+                    {{/exportUsed}}
+
+                        @Autowired
+                        private {{serviceName}} {{serviceField}};
+                    {{#exportUsed}}
+
+                        @Autowired
+                        private ObjectMapper objectMapper;
+                    {{/exportUsed}}
+                    {{#asyncServices}}
+
+                        // The endpoints return futures: the request thread is released while the service reads the database.
+                    {{/asyncServices}}
+
+                        // Offset pagination: GET /api/{{resourcePath}}?page=0&size={{defaultPageSize}}
+                        @GetMapping
+                        public {{futureStart}}{{#springDataUsed}}Page{{/springDataUsed}}{{^springDataUsed}}List{{/springDataUsed}}<{{className}}>{{futureEnd}} findPage(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "{{defaultPageSize}}") int size) {
+                            return {{serviceField}}.findPage{{asyncSuffix}}(page, size);
+                        }
+
+                        // Keyset pagination: GET /api/{{resourcePath}}/keyset?after=<last id of the previous page>&size={{defaultPageSize}}
+                        @GetMapping("/keyset")
+                        public {{futureStart}}List<{{className}}>{{futureEnd}} findPageAfter(@RequestParam(required = false) {{idType}} after, @RequestParam(defaultValue = "{{defaultPageSize}}") int size) {
+                            return {{serviceField}}.findPageAfter{{asyncSuffix}}(after, size);
+                        }
+                    {{#projections}}
+                    {{#projectionEndpoint}}
+
+                        // Only the columns of {{projectionName}}: GET /api/{{resourcePath}}/{{projectionPath}}?page=0&size={{defaultPageSize}}
+                        @GetMapping("/{{projectionPath}}")
+                        public {{futureStart}}List<{{projectionName}}>{{futureEnd}} {{projectionMethod}}(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "{{defaultPageSize}}") int size) {
+                            return {{serviceField}}.{{projectionMethod}}{{asyncSuffix}}(page, size);
+                        }
+                    {{/projectionEndpoint}}
+                    {{/projections}}
+                    {{#unboundedFindAll}}
+
+                        // Example REST endpoint, loading the whole table
+                        @GetMapping("/all")
+                        public List<{{name}}> findAll() {
+                            return {{serviceField}}.findAll();
+                        }
+                    {{/unboundedFindAll}}
+                    {{#exportUsed}}
+
+                        // Export of the columns of the table, one JSON object per line: GET /api/{{resourcePath}}/export.ndjson
+                        @GetMapping("/export.ndjson")
+                        public ResponseEntity<StreamingResponseBody> exportNdjson() {
+                            StreamingResponseBody body = out -> {
+                                OutputStream buffer = new BufferedOutputStream(out, EXPORT_BUFFER_SIZE);
+                                export(entity -> {
+                                    Map<String, Object> row = new LinkedHashMap<>();
+                    {{#exportColumns}}
+                                    row.put("{{name}}", entity.{{accessor}});
+                    {{/exportColumns}}
+                                    buffer.write(objectMapper.writeValueAsBytes(row));
+                                    buffer.write('\\n');
+                                });
+                                buffer.flush();
+                            };
+                            return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+                        }
+
+                        // Export of the columns of the table, one CSV row per entity: GET /api/{{resourcePath}}/export.csv
+                        @GetMapping("/export.csv")
+                        public ResponseEntity<StreamingResponseBody> exportCsv() {
+                            StreamingResponseBody body = out -> {
+                                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE);
+                                writer.write("{{exportHeader}}\\n");
+                                export(entity -> {
+                    {{#exportColumns}}
+                                    writer.write(csv(entity.{{accessor}}));
+                                    writer.write({{separator}});
+                    {{/exportColumns}}
+                                });
+                                writer.flush();
+                            };
+                            return ResponseEntity.ok().contentType(new MediaType("text", "csv", StandardCharsets.UTF_8)).body(body);
+                        }
+
+                        // Quotes a value that holds a separator, a quote or a line break. A null value is left empty.
+                        private static String csv(Object value) {
+                            if (value == null) {
+                                return "";
+                            }
+                            String text = value.toString();
+                            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\\n') < 0 && text.indexOf('\\r') < 0) {
+                                return text;
+                            }
+                            return '"' + text.replace("\\"", "\\"\\"") + '"';
+                        }
+
+                        // Runs the export of the service, passing the errors of the client connection on to Spring MVC.
+                        private void export(EntityWriter writer) throws IOException {
+                            try {
+                                {{serviceField}}.exportAll(entity -> {
+                                    try {
+                                        writer.write(entity);
+                                    } catch (IOException e) {
+                                        throw new UncheckedIOException(e);
+                                    }
+                                });
+                            } catch (UncheckedIOException e) {
+                                throw e.getCause();
+                            }
+                        }
+
+                        private interface EntityWriter {
+                            void write({{className}} entity) throws IOException;
+                        }
+                    {{/exportUsed}}
 
-            if (useSpringData) {
-                serviceCode.append("    // Example method using Spring Data JPA\n");
-                serviceCode.append("    public List<").append(entityName).append("> findAll() {\n");
-                serviceCode.append("        return ").append(repositoryName.substring(0, 1).toLowerCase()).append(repositoryName.substring(1)).append(".findAll();\n");
-                serviceCode.append("    }\n\n");
-            } else {
-                serviceCode.append("    // Example method using pure JPA\n");
-                serviceCode.append("    public List<").append(entityName).append("> findAll() {\n");
-                serviceCode.append("        return ").append(repositoryName.substring(0, 1).toLowerCase()).append(repositoryName.substring(1)).append(".findAll();\n");
-                serviceCode.append("    }\n\n");
+                    }
+                    """),
+                Map.entry("projection", """
+                    package {{package}};
+
+                    {{#imports}}
+                    import {{.}};
+                    {{/imports}}
+                    {{#importsUsed}}
+
+                    {{/importsUsed}}
+                    // Read model of the entity {{entityName}}, filled by {{repositoryName}} with the selected columns only.
+                    public record {{name}}({{components}}) {
+                    }
+                    """),
+                Map.entry("application-dev.properties", """
+                    # Database configuration (H2 for development)
+                    spring.datasource.url=jdbc:h2:mem:testdb
+                    spring.datasource.driver-class-name=org.h2.Driver
+                    spring.datasource.username=sa
+                    spring.datasource.password=password
+                    spring.jpa.database-platform=org.hibernate.dialect.H2Dialect
+
+                    # Hibernate configuration
+                    spring.jpa.hibernate.ddl-auto=update
+                    spring.jpa.show-sql=true
+
+                    # Enable H2 console
+                    spring.h2.console.enabled=true
+                    spring.h2.console.path=/h2-console
+                    {{#readReplicaRouting}}
+
+                    # Read/write routing: two in-memory H2 databases stand for the primary and the replica. The replica
+                    # receives a copy of the primary once the application has started (see DataSourceRoutingConfig).
+                    app.datasource.primary.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1
+                    app.datasource.primary.driver-class-name=org.h2.Driver
+                    app.datasource.primary.username=sa
+                    app.datasource.primary.password=password
+                    app.datasource.primary.hikari.pool-name=primary
+                    app.datasource.primary.hikari.maximum-pool-size={{primaryPoolSize}}
+                    app.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1
+                    app.datasource.replica.driver-class-name=org.h2.Driver
+                    app.datasource.replica.username=sa
+                    app.datasource.replica.password=password
+                    app.datasource.replica.hikari.pool-name=replica
+                    app.datasource.replica.hikari.maximum-pool-size={{replicaPoolSize}}
+                    {{/readReplicaRouting}}
+
+                    # Server configuration
+                    server.port=8080
+
+                    # Logging
+                    logging.level.org.springframework=DEBUG
+                    logging.level.com.example=DEBUG
+                    """),
+                Map.entry("application-prod.properties", """
+                    # Database configuration (MySQL for production)
+                    spring.datasource.url=jdbc:mysql://prod-db:3306/mydatabase{{mysqlUrlParameters}}
+                    spring.datasource.username=produser
+                    spring.datasource.password=prodpassword
+                    spring.datasource.driver-class-name=com.mysql.cj.jdbc.Driver
+
+                    # Hibernate configuration
+                    spring.jpa.hibernate.ddl-auto=validate
+                    spring.jpa.show-sql=false
+                    spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQL8Dialect
+                    {{#indexMigrations}}
+
+                    # Index migrations (db/migration): a schema created before Flyway is baselined at version 0, so that
+                    # they run on it too
+                    spring.flyway.enabled=true
+                    spring.flyway.baseline-on-migrate=true
+                    spring.flyway.baseline-version=0
+                    {{/indexMigrations}}
+                    {{#highThroughputPersistence}}
+
+                    # JDBC batching: inserts and updates are grouped by entity and sent {{jdbcBatchSize}} rows at a time
+                    spring.jpa.properties.hibernate.jdbc.batch_size={{jdbcBatchSize}}
+                    spring.jpa.properties.hibernate.order_inserts=true
+                    spring.jpa.properties.hibernate.order_updates=true
+                    spring.jpa.properties.hibernate.jdbc.batch_versioned_data=true
+                    spring.jpa.properties.hibernate.id.optimizer.pooled.preferred=pooled
+                    {{/highThroughputPersistence}}
+                    {{#readReplicaRouting}}
+
+                    # Read/write routing: the read-only transactions (@Transactional(readOnly = true)) run on the replica
+                    # pool, all the others on the primary pool. These pools replace the spring.datasource one.
+                    app.datasource.primary.url=jdbc:mysql://prod-db:3306/mydatabase{{mysqlUrlParameters}}
+                    app.datasource.primary.username=produser
+                    app.datasource.primary.password=prodpassword
+                    app.datasource.primary.driver-class-name=com.mysql.cj.jdbc.Driver
+                    app.datasource.primary.hikari.pool-name=primary
+                    app.datasource.primary.hikari.maximum-pool-size={{primaryPoolSize}}
+                    app.datasource.replica.url=jdbc:mysql://prod-db-replica:3306/mydatabase{{mysqlUrlParameters}}
+                    app.datasource.replica.username=produser
+                    app.datasource.replica.password=prodpassword
+                    app.datasource.replica.driver-class-name=com.mysql.cj.jdbc.Driver
+                    app.datasource.replica.hikari.pool-name=replica
+                    app.datasource.replica.hikari.maximum-pool-size={{replicaPoolSize}}
+                    app.datasource.replica.hikari.read-only=true
+                    {{/readReplicaRouting}}
+
+                    # Server configuration
+                    server.port=8080
+
+                    # Logging
+                    logging.level.org.springframework=INFO
+                    logging.level.com.example=INFO
+
+                    # Disable H2 console
+                    spring.h2.console.enabled=false
+                    """),
+                Map.entry("logback-spring.xml", """
+                    <configuration>
+                        <!-- Console appender -->
+                        <appender name="STDOUT" class="ch.qos.logback.core.ConsoleAppender">
+                            <encoder>
+                                <pattern>%d{yyyy-MM-dd HH:mm:ss} %-5level %logger{36} - %msg%n</pattern>
+                            </encoder>
+                        </appender>
+
+                        <!-- Application logger -->
+                        <logger name="com.example" level="DEBUG" />
+
+                        <!-- Spring logger -->
+                        <logger name="org.springframework" level="INFO" />
+
+                        <!-- Root logger -->
+                        <root level="INFO">
+                            <appender-ref ref="STDOUT" />
+                        </root>
+                    </configuration>
+                    """),
+                Map.entry("SwaggerConfig.java", """
+                    _package com.example.config;
+
+                    import org.springframework.context.annotation.Bean;
+                    import org.springframework.context.annotation.Configuration;
+                    import springfox.documentation.builders.PathSelectors;
+                    import springfox.documentation.builders.RequestHandlerSelectors;
+                    import springfox.documentation.spi.DocumentationType;
+                    import springfox.documentation.spring.web.plugins.Docket;
+                    import springfox.documentation.swagger2.annotations.EnableSwagger2;
+
+                    @Configuration
+                    @EnableSwagger2
+                    public class SwaggerConfig {
+
+                        @Bean
+                        public Docket api() {
+                            return new Docket(DocumentationType.SWAGGER_2)
+                                .select()
+                                .apis(RequestHandlerSelectors.base_package("com.example.controller"))
+                                .paths(PathSelectors.any())
+                                .build();
+                        }
+                    }
+                    """),
+                Map.entry("SecurityConfig.java", """
+                    _package com.example.config;
+
+                    import org.springframework.context.annotation.Bean;
+                    import org.springframework.context.annotation.Configuration;
+                    import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+                    import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+                    import org.springframework.security.web.SecurityFilterChain;
+
+                    @Configuration
+                    @EnableWebSecurity
+                    public class SecurityConfig {
+
+                        @Bean
+                        public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+                            http
+                                .csrf().disable() // Disable CSRF for REST APIs
+                                .authorizeHttpRequests()
+                                    .requestMatchers("/api/public/**").permitAll() // Allow public access to certain routes
+                                    .anyRequest().authenticated() // All other routes require authentication
+                                .and()
+                                .httpBasic(); // Use basic authentication (username/password)
+                            return http.build();
+                        }
+                    }
+                    """),
+                Map.entry("application.yml", """
+                    spring:
+                    {{#virtualThreads}}
+                      # Each request runs on its own virtual thread (Java 21, Spring Boot 3.2): a blocking call parks it
+                      # instead of holding one of the 200 Tomcat threads
+                      threads:
+                        virtual:
+                          enabled: true
+                    {{/virtualThreads}}
+                      datasource:
+                        url: jdbc:mysql://localhost:3306/mydatabase
+                        username: root
+                        password: password
+                        driver-class-name: com.mysql.cj.jdbc.Driver
+                    {{#virtualThreads}}
+                        # The connection pool, not the thread pool, now bounds the concurrent database work: requests
+                        # wait at most connection-timeout ms for one of the maximum-pool-size connections
+                        hikari:
+                          maximum-pool-size: {{connectionPoolSize}}
+                          minimum-idle: {{connectionPoolSize}}
+                          connection-timeout: 5000
+                    {{/virtualThreads}}
+                      jpa:
+                        hibernate:
+                          ddl-auto: update
+                        show-sql: true
+                        properties:
+                          hibernate:
+                            dialect: org.hibernate.dialect.MySQL8Dialect
+                    {{#indexMigrations}}
+                      # Hibernate creates the tables and their indexes: the index migrations are for the prod profile
+                      flyway:
+                        enabled: false
+                    {{/indexMigrations}}
+                    server:
+                      port: 8080
+                    logging:
+                      level:
+                        org.springframework: INFO
+                        com.example: DEBUG
+                    """),
+                Map.entry("AsyncConfig.java", """
+                    package com.example.config;
+
+                    import java.util.concurrent.Executors;
+                    import org.springframework.context.annotation.Bean;
+                    import org.springframework.context.annotation.Configuration;
+                    import org.springframework.core.task.AsyncTaskExecutor;
+                    import org.springframework.core.task.support.TaskExecutorAdapter;
+                    import org.springframework.scheduling.annotation.EnableAsync;
+
+                    @Configuration
+                    @EnableAsync
+                    public class AsyncConfig {
+
+                        // The @Async methods of the services run on virtual threads, one per call.
+                        @Bean(name = "applicationTaskExecutor")
+                        public AsyncTaskExecutor applicationTaskExecutor() {
+                            return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+                        }
+                    }
+                    """),
+                Map.entry("JacksonConfig.java", """
+                    package com.example.config;
+
+                    import com.fasterxml.jackson.databind.Module;
+                    import com.fasterxml.jackson.datatype.{{hibernateModuleVersion}}.{{hibernateModule}};
+                    import org.springframework.context.annotation.Bean;
+                    import org.springframework.context.annotation.Configuration;
+
+                    // Writes the unloaded LAZY associations as their id (needs jackson-datatype-{{hibernateModuleVersion}}).
+                    @Configuration
+                    public class JacksonConfig {
+
+                        @Bean
+                        public Module hibernateModule() {
+                            {{hibernateModule}} module = new {{hibernateModule}}();
+                            module.enable({{hibernateModule}}.Feature.SERIALIZE_IDENTIFIER_FOR_LAZY_NOT_LOADED_OBJECTS);
+                            return module;
+                        }
+                    }
+                    """),
+                Map.entry("DataSourceRoutingConfig.java", """
+                    package com.example.config;
+
+                    import com.zaxxer.hikari.HikariDataSource;
+                    import java.nio.file.Files;
+                    import java.nio.file.Path;
+                    import java.sql.Connection;
+                    import java.sql.Statement;
+                    import java.util.Map;
+                    import javax.sql.DataSource;
+                    import org.springframework.beans.factory.annotation.Qualifier;
+                    import org.springframework.boot.ApplicationRunner;
+                    import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+                    import org.springframework.boot.context.properties.ConfigurationProperties;
+                    import org.springframework.context.annotation.Bean;
+                    import org.springframework.context.annotation.Configuration;
+                    import org.springframework.context.annotation.Primary;
+                    import org.springframework.context.annotation.Profile;
+                    import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+                    import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+                    import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+                    // Sends the read-only transactions to the replica pool and all the others to the primary pool.
+                    @Configuration
+                    public class DataSourceRoutingConfig {
+
+                        static class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+                            @Override
+                            protected Object determineCurrentLookupKey() {
+                                return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? "replica" : "primary";
+                            }
+                        }
+
+                        @Bean
+                        @Primary
+                        @ConfigurationProperties("app.datasource.primary")
+                        public DataSourceProperties primaryDataSourceProperties() {
+                            return new DataSourceProperties();
+                        }
+
+                        @Bean
+                        @ConfigurationProperties("app.datasource.primary.hikari")
+                        public HikariDataSource primaryDataSource(@Qualifier("primaryDataSourceProperties") DataSourceProperties properties) {
+                            return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+                        }
+
+                        @Bean
+                        @ConfigurationProperties("app.datasource.replica")
+                        public DataSourceProperties replicaDataSourceProperties() {
+                            return new DataSourceProperties();
+                        }
+
+                        @Bean
+                        @ConfigurationProperties("app.datasource.replica.hikari")
+                        public HikariDataSource replicaDataSource(@Qualifier("replicaDataSourceProperties") DataSourceProperties properties) {
+                            return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+                        }
+
+                        // The pool is picked when the first statement runs, once the transaction is marked read-only.
+                        @Bean
+                        @Primary
+                        public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary, @Qualifier("replicaDataSource") DataSource replica) {
+                            ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource();
+                            routingDataSource.setTargetDataSources(Map.of("primary", primary, "replica", replica));
+                            routingDataSource.setDefaultTargetDataSource(primary);
+                            routingDataSource.afterPropertiesSet();
+                            return new LazyConnectionDataSourceProxy(routingDataSource);
+                        }
+
+                        // Dev profile: the replica H2 database gets a copy of the primary once the application has started.
+                        @Bean
+                        @Profile("dev")
+                        public ApplicationRunner replicaCopy(@Qualifier("primaryDataSource") DataSource primary, @Qualifier("replicaDataSource") DataSource replica) {
+                            return args -> {
+                                Path script = Files.createTempFile("replica", ".sql");
+                                try (Connection connection = primary.getConnection(); Statement statement = connection.createStatement()) {
+                                    statement.execute("SCRIPT TO '" + script + "'");
+                                }
+                                try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+                                    statement.execute("RUNSCRIPT FROM '" + script + "'");
+                                }
+                                Files.delete(script);
+                            };
+                        }
+                    }
+                    """),
+                Map.entry("application.properties", """
+                    # Database configuration
+                    spring.datasource.url=jdbc:mysql://localhost:3306/mydatabase
+                    spring.datasource.username=root
+                    spring.datasource.password=password
+                    spring.datasource.driver-class-name=com.mysql.cj.jdbc.Driver
+
+                    # Hibernate configuration
+                    spring.jpa.hibernate.ddl-auto=update
+                    spring.jpa.show-sql=true
+                    spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQL8Dialect
+                    {{#indexMigrations}}
+                    # Hibernate creates the tables and their indexes: the index migrations are for the prod profile
+                    spring.flyway.enabled=false
+                    {{/indexMigrations}}
+                    {{#readReplicaRouting}}
+
+                    # Read/write routing: the read-only transactions run on the replica pool, the others on the primary pool
+                    app.datasource.primary.url=jdbc:mysql://localhost:3306/mydatabase
+                    app.datasource.primary.username=root
+                    app.datasource.primary.password=password
+                    app.datasource.primary.driver-class-name=com.mysql.cj.jdbc.Driver
+                    app.datasource.primary.hikari.pool-name=primary
+                    app.datasource.primary.hikari.maximum-pool-size={{primaryPoolSize}}
+                    app.datasource.replica.url=jdbc:mysql://localhost:3307/mydatabase
+                    app.datasource.replica.username=root
+                    app.datasource.replica.password=password
+                    app.datasource.replica.driver-class-name=com.mysql.cj.jdbc.Driver
+                    app.datasource.replica.hikari.pool-name=replica
+                    app.datasource.replica.hikari.maximum-pool-size={{replicaPoolSize}}
+                    app.datasource.replica.hikari.read-only=true
+                    {{/readReplicaRouting}}
+                    {{#secondLevelCache}}
+
+                    # Second-level and query cache, in process: JCache backed by Caffeine, with the regions of caffeine.conf
+                    # (needs the org.hibernate.orm:hibernate-jcache and com.github.ben-manes.caffeine:jcache dependencies)
+                    spring.jpa.properties.hibernate.cache.use_second_level_cache=true
+                    spring.jpa.properties.hibernate.cache.use_query_cache=true
+                    spring.jpa.properties.hibernate.cache.region.factory_class=jcache
+                    spring.jpa.properties.hibernate.javax.cache.provider=com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider
+                    spring.jpa.properties.hibernate.javax.cache.uri=classpath:caffeine.conf
+                    {{/secondLevelCache}}
+
+                    # Server configuration
+                    server.port=8080
+                    {{#streamingExport}}
+                    # The exports stream a whole table in one response: no timeout for the asynchronous requests
+                    spring.mvc.async.request-timeout=-1
+                    {{/streamingExport}}
+
+                    # Logging
+                    logging.level.org.springframework=INFO
+                    logging.level.com.example=DEBUG
+                    """),
+                Map.entry("create_indexes.sql", """
+                    -- Indexes of the generated entities (migration version {{schemaMigrationVersion}}).
+                    -- Flyway applies it with the prod profile, on the tables that Hibernate validates; with ddl-auto=update,
+                    -- Hibernate creates the same indexes from the @Table and @JoinTable annotations and Flyway is disabled.
+                    -- Once generated, this file is never rewritten: the indexes added later go into the next version.
+                    -- The names follow the naming strategy of Spring Boot, and the statements run as they are on H2,
+                    -- MySQL and PostgreSQL.
+                    {{#schemaIndexes}}
+                    {{sql}}
+                    {{/schemaIndexes}}
+                    """),
+                Map.entry("caffeine.conf", """
+                    # Regions of the Hibernate second-level cache. Each region holds at most maximum.size entries,
+                    # which expire after-write seconds after they were cached.
+                    caffeine.jcache {
+                    {{#cacheRegions}}
+                      "{{region}}" {
+                        policy {
+                          maximum.size = {{maxEntries}}
+                          eager-expiration.after-write = {{ttlSeconds}}s
+                        }
+                      }
+                    {{/cacheRegions}}
+                      # Results of the cached queries; a write to one of their tables invalidates them as well.
+                      "default-query-results-region" {
+                        policy {
+                          maximum.size = 10000
+                          eager-expiration.after-write = {{queryCacheTtlSeconds}}s
+                        }
+                      }
+                      # Last update of each table, checked against the cached query results: it must never expire.
+                      "default-update-timestamps-region" {
+                      }
+                    }
+                    """));
+
+        private static final Map<String, Template> compiled = new ConcurrentHashMap<>();
+        private static final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(BUFFER_SIZE));
+        private static final LongAdder renderedFiles = new LongAdder();
+        private static final LongAdder renderNanos = new LongAdder();
+        private static String directory = "";
+
+        static void configure(String templatesDirectory, List<String> errors) {
+            compiled.clear();
+            directory = templatesDirectory;
+            if (!directory.isEmpty() && !Files.isDirectory(Paths.get(directory))) {
+                errors.add("configuration_variables.templates_directory '" + directory + "' is not a directory");
+                return;
             }
-
-            serviceCode.append("}\n");
-
-            String filePath = serviceOutputDir + "/" + serviceName + ".java";
-            try {
-                Files.write(Paths.get(filePath), serviceCode.toString().getBytes());
-            } catch (IOException e) {
-                System.out.println("Error writing service file: " + e.getMessage());
-            }
-        }
-
-        System.out.println("\t🛠️ " + entities.size() + " services generated successfully.");
-    }
-
-    private static void generateControllers(List<Map<String, Object>> entities, Map<String, Object> configurationVariables) {
-        String outputDir = (String) configurationVariables.getOrDefault("OUT_PUT_DIR", "./generated_classes");
-        String _package = (String) configurationVariables.getOrDefault("controller_classes__packages", "com.example.controller");
-        String _packagePath = _package.replace(".", "/");
-        String controllerOutputDir = outputDir + "/" + _packagePath;
-        new File(controllerOutputDir).mkdirs();
-
-        for (Map<String, Object> entity : entities) {
-            String entityName = (String) entity.get("entity_name");
-            String controllerName = entityName + "Controller";
-            String serviceName = entityName + "Service";
-            String service_package = (String) configurationVariables.getOrDefault("service_classes__packages", "com.example.service");
-
-            StringBuilder controllerCode = new StringBuilder();
-            controllerCode.append("_package ").append(_package).append(";\n\n");
-            controllerCode.append("import org.springframework.beans.factory.annotation.Autowired;\n");
-            controllerCode.append("import org.springframework.web.bind.annotation.*;\n");
-            controllerCode.append("import ").append(service_package).append(".").append(serviceName).append(";\n\n");
-            controllerCode.append("@RestController\n");
-            controllerCode.append("@RequestMapping(\"/api/").append(entityName.toLowerCase()).append("s\")\n");
-            controllerCode.append("public class ").append(controllerName).append(" {\n\n");
-            controllerCode.append("    @Autowired\n");
-            controllerCode.append("    private ").append(serviceName).append(" ").append(serviceName.substring(0, 1).toLowerCase()).append(serviceName.substring(1)).append(";\n\n");
-            controllerCode.append("    // Example REST endpoint\n");
-            controllerCode.append("    @GetMapping\n");
-            controllerCode.append("    public List<").append(entityName).append("> findAll() {\n");
-            controllerCode.append("        return ").append(serviceName.substring(0, 1).toLowerCase()).append(serviceName.substring(1)).append(".findAll();\n");
-            controllerCode.append("    }\n\n");
-            controllerCode.append("}\n");
-
-            String filePath = controllerOutputDir + "/" + controllerName + ".java";
-            try {
-                Files.write(Paths.get(filePath), controllerCode.toString().getBytes());
-            } catch (IOException e) {
-                System.out.println("Error writing controller file: " + e.getMessage());
+            for (String name : BUILT_IN.keySet()) {
+                try {
+                    Path override = Paths.get(directory, name + EXTENSION);
+                    String source = !directory.isEmpty() && Files.isRegularFile(override) ? Files.readString(override) : BUILT_IN.get(name);
+                    compiled.put(name, Template.parse(source));
+                } catch (IOException | IllegalArgumentException e) {
+                    errors.add("Invalid template '" + name + "': " + e.getMessage());
+                }
             }
         }
 
-        System.out.println("\t🎮 " + entities.size() + " controllers generated successfully.");
-    }
+        static void resetStatistics() {
+            renderedFiles.reset();
+            renderNanos.reset();
+        }
 
-    private static void generateConfigurationFiles(Map<String, Object> configurationVariables) {
-        String outputDir = (String) configurationVariables.getOrDefault("OUT_PUT_DIR", "./generated_classes");
-        String configDir = outputDir + "/src/main/resources";
-        String configJavaDir = outputDir + "/src/main/java/com/example/config";
-        new File(configDir).mkdirs();
-        new File(configJavaDir).mkdirs();
+        static String render(String name, Map<?, ?>... scopes) {
+            long start = System.nanoTime();
+            StringBuilder buffer = buffers.get();
+            buffer.setLength(0);
+            compiled.get(name).render(buffer, new ArrayList<>(Arrays.asList(scopes)));
+            String content = buffer.toString();
+            if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                buffers.remove();
+            }
+            renderedFiles.increment();
+            renderNanos.add(System.nanoTime() - start);
+            return content;
+        }
 
-        try {
-            Files.write(Paths.get(configDir + "/application-dev.properties"), (
-                    "# Database configuration (H2 for development)\n" +
-                    "spring.datasource.url=jdbc:h2:mem:testdb\n" +
-                    "spring.datasource.driver-class-name=org.h2.Driver\n" +
-                    "spring.datasource.username=sa\n" +
-                    "spring.datasource.password=password\n" +
-                    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect\n\n" +
-                    "# Hibernate configuration\n" +
-                    "spring.jpa.hibernate.ddl-auto=update\n" +
-                    "spring.jpa.show-sql=true\n\n" +
-                    "# Enable H2 console\n" +
-                    "spring.h2.console.enabled=true\n" +
-                    "spring.h2.console.path=/h2-console\n\n" +
-                    "# Server configuration\n" +
-                    "server.port=8080\n\n" +
-                    "# Logging\n" +
-                    "logging.level.org.springframework=DEBUG\n" +
-                    "logging.level.com.example=DEBUG\n"
-            ).getBytes());
-
-            Files.write(Paths.get(configDir + "/application-prod.properties"), (
-                    "# Database configuration (MySQL for production)\n" +
-                    "spring.datasource.url=jdbc:mysql://prod-db:3306/mydatabase\n" +
-                    "spring.datasource.username=produser\n" +
-                    "spring.datasource.password=prodpassword\n" +
-                    "spring.datasource.driver-class-name=com.mysql.cj.jdbc.Driver\n\n" +
-                    "# Hibernate configuration\n" +
-                    "spring.jpa.hibernate.ddl-auto=validate\n" +
-                    "spring.jpa.show-sql=false\n" +
-                    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQL8Dialect\n\n" +
-                    "# Server configuration\n" +
-                    "server.port=8080\n\n" +
-                    "# Logging\n" +
-                    "logging.level.org.springframework=INFO\n" +
-                    "logging.level.com.example=INFO\n\n" +
-                    "# Disable H2 console\n" +
-                    "spring.h2.console.enabled=false\n"
-            ).getBytes());
-
-            Files.write(Paths.get(configDir + "/logback-spring.xml"), (
-                    "<configuration>\n" +
-                    "    <!-- Console appender -->\n" +
-                    "    <appender name=\"STDOUT\" class=\"ch.qos.logback.core.ConsoleAppender\">\n" +
-                    "        <encoder>\n" +
-                    "            <pattern>%d{yyyy-MM-dd HH:mm:ss} %-5level %logger{36} - %msg%n</pattern>\n" +
-                    "        </encoder>\n" +
-                    "    </appender>\n\n" +
-                    "    <!-- Application logger -->\n" +
-                    "    <logger name=\"com.example\" level=\"DEBUG\" />\n\n" +
-                    "    <!-- Spring logger -->\n" +
-                    "    <logger name=\"org.springframework\" level=\"INFO\" />\n\n" +
-                    "    <!-- Root logger -->\n" +
-                    "    <root level=\"INFO\">\n" +
-                    "        <appender-ref ref=\"STDOUT\" />\n" +
-                    "    </root>\n" +
-                    "</configuration>\n"
-            ).getBytes());
-
-            Files.write(Paths.get(configJavaDir + "/SwaggerConfig.java"), (
-                    "_package com.example.config;\n\n" +
-                    "import org.springframework.context.annotation.Bean;\n" +
-                    "import org.springframework.context.annotation.Configuration;\n" +
-                    "import springfox.documentation.builders.PathSelectors;\n" +
-                    "import springfox.documentation.builders.RequestHandlerSelectors;\n" +
-                    "import springfox.documentation.spi.DocumentationType;\n" +
-                    "import springfox.documentation.spring.web.plugins.Docket;\n" +
-                    "import springfox.documentation.swagger2.annotations.EnableSwagger2;\n\n" +
-                    "@Configuration\n" +
-                    "@EnableSwagger2\n" +
-                    "public class SwaggerConfig {\n\n" +
-                    "    @Bean\n" +
-                    "    public Docket api() {\n" +
-                    "        return new Docket(DocumentationType.SWAGGER_2)\n" +
-                    "            .select()\n" +
-                    "            .apis(RequestHandlerSelectors.base_package(\"com.example.controller\"))\n" +
-                    "            .paths(PathSelectors.any())\n" +
-                    "            .build();\n" +
-                    "    }\n" +
-                    "}\n"
-            ).getBytes());
-
-            Files.write(Paths.get(configJavaDir + "/SecurityConfig.java"), (
-                    "_package com.example.config;\n\n" +
-                    "import org.springframework.context.annotation.Bean;\n" +
-                    "import org.springframework.context.annotation.Configuration;\n" +
-                    "import org.springframework.security.config.annotation.web.builders.HttpSecurity;\n" +
-                    "import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;\n" +
-                    "import org.springframework.security.web.SecurityFilterChain;\n\n" +
-                    "@Configuration\n" +
-                    "@EnableWebSecurity\n" +
-                    "public class SecurityConfig {\n\n" +
-                    "    @Bean\n" +
-                    "    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {\n" +
-                    "        http\n" +
-                    "            .csrf().disable() // Disable CSRF for REST APIs\n" +
-                    "            .authorizeHttpRequests()\n" +
-                    "                .requestMatchers(\"/api/public/**\").permitAll() // Allow public access to certain routes\n" +
-                    "                .anyRequest().authenticated() // All other routes require authentication\n" +
-                    "            .and()\n" +
-                    "            .httpBasic(); // Use basic authentication (username/password)\n" +
-                    "        return http.build();\n" +
-                    "    }\n" +
-                    "}\n"
-            ).getBytes());
-
-            Files.write(Paths.get(configDir + "/application.yml"), (
-                    "spring:\n" +
-                    "  datasource:\n" +
-                    "    url: jdbc:mysql://localhost:3306/mydatabase\n" +
-                    "    username: root\n" +
-                    "    password: password\n" +
-                    "    driver-class-name: com.mysql.cj.jdbc.Driver\n" +
-                    "  jpa:\n" +
-                    "    hibernate:\n" +
-                    "      ddl-auto: update\n" +
-                    "    show-sql: true\n" +
-                    "    properties:\n" +
-                    "      hibernate:\n" +
-                    "        dialect: org.hibernate.dialect.MySQL8Dialect\n" +
-                    "server:\n" +
-                    "  port: 8080\n" +
-                    "logging:\n" +
-                    "  level:\n" +
-                    "    org.springframework: INFO\n" +
-                    "    com.example: DEBUG\n"
-            ).getBytes());
-
-            Files.write(Paths.get(configDir + "/application.properties"), (
-                    "# Database configuration\n" +
-                    "spring.datasource.url=jdbc:mysql://localhost:3306/mydatabase\n" +
-                    "spring.datasource.username=root\n" +
-                    "spring.datasource.password=password\n" +
-                    "spring.datasource.driver-class-name=com.mysql.cj.jdbc.Driver\n\n" +
-                    "# Hibernate configuration\n" +
-                    "spring.jpa.hibernate.ddl-auto=update\n" +
-                    "spring.jpa.show-sql=true\n" +
-                    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQL8Dialect\n\n" +
-                    "# Server configuration\n" +
-                    "server.port=8080\n\n" +
-                    "# Logging\n" +
-                    "logging.level.org.springframework=INFO\n" +
-                    "logging.level.com.example=DEBUG\n"
-            ).getBytes());
-
-            System.out.println("\t✅ Configuration files generated successfully in " + outputDir + ".");
-        } catch (IOException e) {
-            System.out.println("Error writing configuration files: " + e.getMessage());
+        // Identifies the templates in use, so that the incremental manifest regenerates their files when they change.
+        static String fingerprint() {
+            StringBuilder fingerprint = new StringBuilder();
+            for (String name : new TreeSet<>(compiled.keySet())) {
+                fingerprint.append(name).append('\0').append(compiled.get(name).source).append('\0');
+            }
+            return GenerationManifest.hash(fingerprint.toString().getBytes(StandardCharsets.UTF_8));
         }
     }
 
@@ -975,4 +5415,17 @@ public class JavaClassGenerator {
     private static String camelize(String str) {
         return str.substring(0, 1).toUpperCase() + str.substring(1);
     }
+
+    private static String decapitalize(String str) {
+        return str.substring(0, 1).toLowerCase() + str.substring(1);
+    }
+
+    // Builds a mutable template scope from alternating names and values; values may be null.
+    private static Map<String, Object> templateValues(Object... namesAndValues) {
+        Map<String, Object> values = new HashMap<>(namesAndValues.length);
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            values.put((String) namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return values;
+    }
 }
@@ -0,0 +1,240 @@
+/**
+
+Program Name: JavaClassGeneratorBenchmark.java
+Description: JMH benchmarks of JavaClassGenerator.
+             The micro-benchmarks measure the expansion of the field annotations, the rendering of a model class
+             and the rendering of an enum. The end-to-end benchmarks run a whole generation on synthetic `data.json`
+             files of 100 to 100,000 entities, with deep inheritance chains and dense `@ManyToManyJoinTable`
+             relationships, written by the `SyntheticSpec` generator below.
+
+Author: Junior ADI <rootoor.projects@gmail.com> |
+Twitter/X : @caifyoca
+
+License: GPLv3
+
+Usage:
+    - Build this file together with `JavaClassGenerator.java` (same package) and run the JMH runner:
+
+      java -cp <classpath> org.openjdk.jmh.Main JavaClassGeneratorBenchmark -prof gc
+
+    - `-prof gc` adds the allocation rate (`gc.alloc.rate.norm`, in bytes per operation) to the throughput.
+    - The end-to-end benchmarks report both generations per second and entities per second (`entities`),
+      for each value of `entityCount`, which shows how the generator scales with the size of the spec.
+      Restrict the sizes with `-p entityCount=100,1000`.
+    - A synthetic spec can also be written on its own:
+
+      java -cp <classpath> 'ci.abidjan.adi.JavaClassGeneratorBenchmark$SyntheticSpec' 10000 data.json
+
+Dependencies:
+    - add the `jmh-core` dependency and the `jmh-generator-annprocess` annotation processor below into the pom.xml
+
+    <dependency>
+            <groupId>org.openjdk.jmh</groupId>
+            <artifactId>jmh-core</artifactId>
+            <version>1.37</version>
+    </dependency>
+    <dependency>
+            <groupId>org.openjdk.jmh</groupId>
+            <artifactId>jmh-generator-annprocess</artifactId>
+            <version>1.37</version>
+            <scope>provided</scope>
+    </dependency>
+*/
+package ci.abidjan.adi;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+public class JavaClassGeneratorBenchmark {
+
+    private static final List<String> FIELD_ANNOTATIONS = List.of("@Id", "@OneToOneJoinColumn", "@OneToManyMappedBy", "@ManyToOneJoinColumn",
+            "@ManyToManyJoinTable", "@ManyToManyMappedBy", "@Enumerated", "@Embedded", "@Column(name = \"code\")");
+
+    @State(Scope.Benchmark)
+    public static class ModelState {
+        @Param({"5", "50"})
+        public int fieldCount;
+
+        JavaClassGenerator.GeneratorConfig config;
+        JavaClassGenerator.EntitySpec entity;
+        JavaClassGenerator.EntityGraph graph;
+        JavaClassGenerator.EnumSpec enumClass;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            config = JavaClassGenerator.compileConfiguration(SyntheticSpec.configurationVariables("./generated_classes", "memory"));
+            entity = JavaClassGenerator.compileEntity(SyntheticSpec.entity(0, fieldCount, 1, 0, 1), config);
+            graph = JavaClassGenerator.EntityGraph.build(List.of(JavaClassGenerator.EntityNode.of(entity)), null);
+
+            List<String> values = new ArrayList<>();
+            values.add("code");
+            for (int i = 0; i < fieldCount; i++) {
+                values.add("VALUE_" + i + "(" + i + ")");
+            }
+            enumClass = JavaClassGenerator.compileEnum(Map.of("enum_name", "Status", "enum_values", values));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void fieldAnnotationExpansion(Blackhole blackhole) {
+        blackhole.consume(JavaClassGenerator.addFieldAnnotations(FIELD_ANNOTATIONS, "authors", "List<Auteur>", "LAZY", 16));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String classRendering(ModelState state) {
+        return JavaClassGenerator.generateClass(state.entity, state.config, state.graph);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String enumRendering(ModelState state) {
+        return JavaClassGenerator.generateEnum(state.enumClass, state.config.sharedPackage());
+    }
+
+    @State(Scope.Benchmark)
+    public static class SpecState {
+        @Param({"100", "1000", "10000", "100000"})
+        public int entityCount;
+
+        @Param({"memory", "directory"})
+        public String outputSink;
+
+        Path workDirectory;
+        String specFile;
+        PrintStream console;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            workDirectory = Files.createTempDirectory("java-class-generator-bench");
+            specFile = workDirectory.resolve("data.json").toString();
+            SyntheticSpec.write(Paths.get(specFile), entityCount, workDirectory.resolve("generated_classes").toString(), outputSink);
+            // The generator reports every run on the console, which would be measured as well.
+            console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            System.setOut(console);
+            try (Stream<Path> paths = Files.walk(workDirectory)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    // Counts the generated entities, so that JMH also reports a throughput in entities per second.
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class EntityCounter {
+        public long entities;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            entities = 0;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public Object endToEndGeneration(SpecState state, EntityCounter counter) {
+        Object config = JavaClassGenerator.generate(state.specFile, false);
+        if (config == null) {
+            throw new IllegalStateException("The synthetic spec could not be generated");
+        }
+        counter.entities += state.entityCount;
+        return config;
+    }
+
+    // Writes data.json files of any size. Entities come in inheritance chains of INHERITANCE_DEPTH
+    // entities, each one extending the previous one, and every entity holds MANY_TO_MANY_RELATIONSHIPS
+    // @ManyToManyJoinTable lists towards the following entities. The file is streamed, so that a spec
+    // of 100,000 entities never has to be held in memory.
+    public static final class SyntheticSpec {
+        static final int INHERITANCE_DEPTH = 8;
+        static final int FIELD_COUNT = 6;
+        static final int MANY_TO_MANY_RELATIONSHIPS = 4;
+
+        private static final ObjectMapper objectMapper = new ObjectMapper();
+
+        public static void main(String[] args) throws IOException {
+            int entityCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+            String filePath = args.length > 1 ? args[1] : "data.json";
+            write(Paths.get(filePath), entityCount, "./generated_classes", "directory");
+            System.out.println("Synthetic spec of " + entityCount + " entities written to " + filePath + ".");
+        }
+
+        static void write(Path filePath, int entityCount, String outputDir, String outputSink) throws IOException {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(filePath.toFile(), JsonEncoding.UTF8)) {
+                generator.writeStartObject();
+                generator.writeFieldName("configuration_variables");
+                objectMapper.writeValue(generator, configurationVariables(outputDir, outputSink));
+                generator.writeArrayFieldStart("entities");
+                for (int i = 0; i < entityCount; i++) {
+                    objectMapper.writeValue(generator, entity(i, FIELD_COUNT, MANY_TO_MANY_RELATIONSHIPS, INHERITANCE_DEPTH, entityCount));
+                }
+                generator.writeEndArray();
+                generator.writeArrayFieldStart("enum_classes");
+                objectMapper.writeValue(generator, Map.of("enum_name", "Statut", "enum_values", List.of("code", "ACTIF(1)", "INACTIF(0)")));
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        }
+
+        static Map<String, Object> configurationVariables(String outputDir, String outputSink) {
+            Map<String, Object> variables = new LinkedHashMap<>();
+            variables.put("OUT_PUT_DIR", outputDir);
+            variables.put("output_sink", outputSink);
+            variables.put("model_classes_package", "com.example.entity");
+            variables.put("generate_classes_following_packages", true);
+            variables.put("jpa_used", true);
+            variables.put("jakarta_persistence_api", true);
+            variables.put("entity_suffix", "Entity");
+            variables.put("add_models_no_and_all_args_constructors", true);
+            variables.put("add_model_class_getters_setters", true);
+            variables.put("add_model_class_hashcode_equals_tostring_methods", true);
+            variables.put("spring_data_used_for_repositories_and_services", true);
+            return variables;
+        }
+
+        // Entity i extends entity i - 1 inside its chain; the first entity of a chain is its root.
+        static Map<String, Object> entity(int index, int fieldCount, int relationships, int inheritanceDepth, int entityCount) {
+            int positionInChain = inheritanceDepth > 1 ? index % inheritanceDepth : 0;
+            Map<String, Object> entity = new LinkedHashMap<>();
+            entity.put("entity_name", "Entite" + index);
+            entity.put("entity_is_parent", positionInChain < inheritanceDepth - 1 && index < entityCount - 1 && inheritanceDepth > 1);
+            entity.put("entity_inheritance_strategy", "JOINED");
+            entity.put("entity_parent_name", positionInChain > 0 ? "Entite" + (index - 1) : "");
+
+            List<Map<String, Object>> fields = new ArrayList<>();
+            fields.add(Map.of("field_name", "id", "field_type", "", "field_annotations", List.of()));
+            for (int i = 1; i < fieldCount; i++) {
+                fields.add(Map.of("field_name", "champ" + i, "field_type", i % 2 == 0 ? "Integer" : "String", "field_annotations", List.of()));
+            }
+            for (int i = 1; i <= relationships; i++) {
+                int target = (index + i) % entityCount;
+                fields.add(Map.of("field_name", "liens" + i, "field_type", "List<Entite" + target + ">", "field_annotations", List.of("@ManyToManyJoinTable")));
+            }
+            entity.put("fields", fields);
+            return entity;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+#
+# Program Name: java-class-generator.sh
+# Description: Fast-startup launcher of JavaClassGenerator.
+#              On its first run, it makes a training run over the sample `data.json` and saves the classes
+#              it loaded (the generator and Jackson) into an AppCDS archive. Every later run maps that archive
+#              instead of loading and verifying the classes again, and uses the C1 compiler only, which suits
+#              the short runs of small specs. The archive is recreated when a jar of the class path or the
+#              JDK is newer than it.
+#
+# License: GPLv3
+#
+# Usage:
+#     JCG_CLASSPATH=java-class-generator.jar:jackson-databind.jar:jackson-core.jar:jackson-annotations.jar \
+#         ./java-class-generator.sh [--startup-report] [<spec.json | glob>...]
+#
+#     The arguments are those of JavaClassGenerator: without any, `data.json` is generated interactively.
+#     --startup-report prints the time spent in JVM startup, Jackson initialization, loading, validation
+#     and generation.
+#
+# Environment:
+#     JCG_CLASSPATH      the generator and Jackson jars (required; AppCDS only archives classes from jars)
+#     JCG_CDS_ARCHIVE    the archive (default: ~/.cache/java-class-generator/app-cds.jsa)
+#     JCG_TRAINING_SPEC  the spec of the training run (default: the data.json next to this script)
+#     JCG_JAVA_OPTS      more JVM options, for example -XX:TieredStopAtLevel=4 for very large specs
+#     JAVA_HOME          the JDK to use (default: java from the PATH)
+
+set -euo pipefail
+
+MAIN_CLASS="ci.abidjan.adi.JavaClassGenerator"
+CLASSPATH_JARS="${JCG_CLASSPATH:?Set JCG_CLASSPATH to the generator jar and the Jackson jars}"
+ARCHIVE="${JCG_CDS_ARCHIVE:-${HOME}/.cache/java-class-generator/app-cds.jsa}"
+TRAINING_SPEC="${JCG_TRAINING_SPEC:-$(cd "$(dirname "$0")" && pwd)/data.json}"
+JAVA="${JAVA_HOME:+${JAVA_HOME}/bin/}java"
+JAVA_OPTS=(-XX:TieredStopAtLevel=1 -XX:+UseSerialGC)
+if [[ -n "${JCG_JAVA_OPTS:-}" ]]; then
+    read -r -a EXTRA_OPTS <<< "${JCG_JAVA_OPTS}"
+    JAVA_OPTS+=("${EXTRA_OPTS[@]}")
+fi
+
+# The archive is only valid for the jars and the JDK it was created with.
+archive_is_current() {
+    [[ -f "${ARCHIVE}" ]] || return 1
+    local java_path
+    java_path="$(command -v "${JAVA}")"
+    [[ "$(readlink -f "${java_path}")" -nt "${ARCHIVE}" ]] && return 1
+    local jar
+    IFS=':' read -r -a jars <<< "${CLASSPATH_JARS}"
+    for jar in "${jars[@]}"; do
+        [[ "${jar}" -nt "${ARCHIVE}" ]] && return 1
+    done
+    return 0
+}
+
+use_archive=true
+IFS=':' read -r -a entries <<< "${CLASSPATH_JARS}"
+for entry in "${entries[@]}"; do
+    if [[ ! -f "${entry}" ]]; then
+        echo "Note: ${entry} is not a jar, the generator runs without an AppCDS archive." >&2
+        use_archive=false
+    fi
+done
+
+if [[ "${use_archive}" == true ]] && ! archive_is_current; then
+    if [[ -f "${TRAINING_SPEC}" ]]; then
+        echo "Creating the AppCDS archive ${ARCHIVE} from a training run over ${TRAINING_SPEC}..." >&2
+        mkdir -p "$(dirname "${ARCHIVE}")"
+        rm -f "${ARCHIVE}"
+        training_output="$(mktemp -d)"
+        "${JAVA}" -XX:ArchiveClassesAtExit="${ARCHIVE}" "${JAVA_OPTS[@]}" -cp "${CLASSPATH_JARS}" "${MAIN_CLASS}" \
+            --output-root "${training_output}" "${TRAINING_SPEC}" > /dev/null 2>&1 || true
+        rm -rf "${training_output}"
+    fi
+    [[ -f "${ARCHIVE}" ]] || use_archive=false
+fi
+
+if [[ "${use_archive}" == true ]]; then
+    JAVA_OPTS+=(-XX:SharedArchiveFile="${ARCHIVE}")
+fi
+exec "${JAVA}" "${JAVA_OPTS[@]}" -cp "${CLASSPATH_JARS}" "${MAIN_CLASS}" "$@"